@@ -4,60 +4,78 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ClientHttpRequestFactory requestFactory, Optional<WebClient> webClient,
+                         @Value("${shareit-server.passthrough}") boolean passthrough,
+                         Optional<RequestCoalescer> coalescer) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                webClient.map(web -> web.mutate().baseUrl(serverUrl + API_PREFIX).build()).orElse(null),
+                passthrough,
+                coalescer.orElse(null)
         );
     }
 
-    public ResponseEntity<Object> getUserBookings(long userId, BookingState state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getUserBookings(long userId, BookingState state, Integer from, Integer size,
+                                                        String after) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
         );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        return getPage("?state={state}&from={from}&size={size}", userId, parameters, after);
     }
 
-    public ResponseEntity<Object> getOwnerBookings(long userId, BookingState state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getOwnerBookings(long userId, BookingState state, Integer from, Integer size,
+                                                         String after) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
         );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        return getPage("/owner?state={state}&from={from}&size={size}", userId, parameters, after);
     }
 
 
-    public ResponseEntity<Object> bookItem(long userId, BookItemRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> bookItem(long userId, BookItemRequestDto requestDto) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getBooking(long userId, Long bookingId) {
+    public Mono<ResponseEntity<Object>> getBooking(long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> approveBooking(long ownerId, long bookingId, Boolean approved) {
+    public Mono<ResponseEntity<Object>> approveBooking(long ownerId, long bookingId, Boolean approved) {
         Map<String, Object> parameters = Map.of(
                 "approved", approved.toString()
         );
         return patch("/" + bookingId + "?approved={approved}", ownerId, parameters, null);
     }
+
+    public Mono<ResponseEntity<Object>> approveBookings(long ownerId, List<BookingApprovalDto> approvals) {
+        return patch("/batch", ownerId, approvals);
+    }
 }
@@ -7,12 +7,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -20,51 +23,68 @@ import javax.validation.constraints.PositiveOrZero;
 @Slf4j
 @Validated
 public class BookingController {
+	static final int MAX_BATCH_SIZE = 100;
+
 	private final BookingClient bookingClient;
 
 	@GetMapping
-	public ResponseEntity<Object> getUserBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+	public Mono<ResponseEntity<Object>> getUserBookings(@RequestHeader("X-Sharer-User-Id") long userId,
 			@RequestParam(name = "state", defaultValue = "ALL") String stateParam,
 			@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-			@Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+			@Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+			@RequestParam(name = "after", required = false) String after) {
 		BookingState state = BookingState.from(stateParam)
 				.orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
-		log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-		return bookingClient.getUserBookings(userId, state, from, size);
+		log.info("Get booking with state {}, userId={}, from={}, size={}, after={}", stateParam, userId, from, size, after);
+		return bookingClient.getUserBookings(userId, state, from, size, after);
 	}
 
 	@GetMapping("/owner")
-	public ResponseEntity<Object> getOwnerBookings(
+	public Mono<ResponseEntity<Object>> getOwnerBookings(
 			@RequestHeader("X-Sharer-User-Id") Long ownerId,
 			@RequestParam(name = "state", defaultValue = "ALL") String stateParam,
 			@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-			@Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+			@Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+			@RequestParam(name = "after", required = false) String after) {
 		BookingState state = BookingState.from(stateParam)
 				.orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
 		log.info("get all bookings for items with owner with id = {} and state = {}", ownerId, stateParam);
-		return bookingClient.getOwnerBookings(ownerId, state, from, size);
+		return bookingClient.getOwnerBookings(ownerId, state, from, size, after);
 	}
 
 	@PostMapping
-	public ResponseEntity<Object> bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
+	public Mono<ResponseEntity<Object>> bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
 			@RequestBody @Valid BookItemRequestDto requestDto) {
 		log.info("Creating booking {}, userId={}", requestDto, userId);
 		return bookingClient.bookItem(userId, requestDto);
 	}
 
 	@GetMapping("/{bookingId}")
-	public ResponseEntity<Object> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
+	public Mono<ResponseEntity<Object>> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
 			@PathVariable Long bookingId) {
 		log.info("Get booking {}, userId={}", bookingId, userId);
 		return bookingClient.getBooking(userId, bookingId);
 	}
 
 	@PatchMapping("/{bookingId}")
-	public ResponseEntity<Object> approveBooking(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+	public Mono<ResponseEntity<Object>> approveBooking(@RequestHeader("X-Sharer-User-Id") Long ownerId,
 									 @PathVariable("bookingId") Long bookingId,
 									 @RequestParam(name = "approved") Boolean approved) {
 		log.info("try to set approved to booking with id = {} as {} by user with id = {}",
 				bookingId, approved, ownerId);
 		return bookingClient.approveBooking(ownerId, bookingId, approved);
 	}
+
+	@PatchMapping("/batch")
+	public Mono<ResponseEntity<Object>> approveBookings(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+									  @RequestBody List<BookingApprovalDto> approvals) {
+		if (approvals.isEmpty() || approvals.size() > MAX_BATCH_SIZE) {
+			throw new IllegalArgumentException("batch should contain from 1 to " + MAX_BATCH_SIZE + " bookings");
+		}
+		if (approvals.stream().anyMatch(a -> a == null || a.getBookingId() == null || a.getApproved() == null)) {
+			throw new IllegalArgumentException("every batch entry should have bookingId and approved");
+		}
+		log.info("try to approve or reject {} bookings by user with id = {}", approvals.size(), ownerId);
+		return bookingClient.approveBookings(ownerId, approvals);
+	}
 }
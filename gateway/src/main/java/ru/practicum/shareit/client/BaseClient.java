@@ -1,101 +1,214 @@
 package ru.practicum.shareit.client;
 
+import java.net.URI;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
-
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Forwards requests to the server. In the default blocking mode a request is sent with {@code rest} on the thread
+ * that subscribes to the returned {@link Mono}, i.e. the servlet thread; in the reactive mode it is sent with the
+ * non-blocking {@code web} client, which frees the servlet thread until the response arrives.
+ * <p>
+ * In the passthrough mode the body of a response is forwarded as the bytes the server sent, together with
+ * {@link #PASSTHROUGH_HEADERS}, instead of being parsed into maps and lists and written back as JSON.
+ * <p>
+ * With a {@link RequestCoalescer} identical GET requests in flight at the same time are sent once. They are
+ * identical when they have the same URI and, unless {@link #dependsOnUser} says otherwise, the same user.
+ */
 public class BaseClient {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final List<String> PASSTHROUGH_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL, HttpHeaders.LOCATION, NEXT_CURSOR_HEADER);
+
     protected final RestTemplate rest;
+    @Nullable
+    protected final WebClient web;
+    private final boolean passthrough;
+    @Nullable
+    private final RequestCoalescer coalescer;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, null, false, null);
+    }
+
+    public BaseClient(RestTemplate rest, @Nullable WebClient web, boolean passthrough,
+                      @Nullable RequestCoalescer coalescer) {
         this.rest = rest;
+        this.web = web;
+        this.passthrough = passthrough;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * Whether the response to a GET of {@code path} may differ between users, so that only requests of the same
+     * user are coalesced.
+     */
+    protected boolean dependsOnUser(String path) {
+        return true;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        Mono<ResponseEntity<Object>> request = makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+        if (coalescer == null) {
+            return request;
+        }
+        URI uri = parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+        String user = userId != null && dependsOnUser(path) ? String.valueOf(userId) : "";
+        return coalescer.coalesce(user + " " + uri, request);
+    }
+
+    /**
+     * Requests a page in offset mode, or in keyset mode when the client sent back an {@code after} cursor.
+     */
+    protected Mono<ResponseEntity<Object>> getPage(String path, Long userId, Map<String, Object> parameters,
+                                                   @Nullable String after) {
+        if (after == null) {
+            return get(path, userId, parameters);
+        }
+        Map<String, Object> pageParameters = new HashMap<>(parameters);
+        pageParameters.put("after", after);
+        return get(path + (path.contains("?") ? "&" : "?") + "after={after}", userId, pageParameters);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (web != null) {
+            return exchange(web, method, path, userId, parameters, body);
+        }
+        return Mono.fromCallable(() -> exchange(method, path, userId, parameters, body));
+    }
+
+    private <T> ResponseEntity<Object> exchange(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
 
-        ResponseEntity<Object> shareitServerResponse;
         try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+            if (passthrough) {
+                ResponseEntity<byte[]> response = send(method, path, requestEntity, byte[].class, parameters);
+                return bytesResponse(response.getStatusCode(), response.getHeaders(), response.getBody());
             }
+            return prepareGatewayResponse(send(method, path, requestEntity, Object.class, parameters));
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            return bytesResponse(e.getStatusCode(), passthrough ? e.getResponseHeaders() : null,
+                    e.getResponseBodyAsByteArray());
+        }
+    }
+
+    private <T, R> ResponseEntity<R> send(HttpMethod method, String path, HttpEntity<T> requestEntity,
+                                          Class<R> responseType, @Nullable Map<String, Object> parameters) {
+        if (parameters != null) {
+            return rest.exchange(path, method, requestEntity, responseType, parameters);
+        }
+        return rest.exchange(path, method, requestEntity, responseType);
+    }
+
+    private <T> Mono<ResponseEntity<Object>> exchange(WebClient web, HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = (parameters != null
+                ? web.method(method).uri(path, parameters)
+                : web.method(method).uri(path))
+                .headers(headers -> headers.addAll(defaultHeaders(userId)));
+        return (body != null ? request.bodyValue(body) : request)
+                .exchangeToMono(this::prepareGatewayResponse);
+    }
+
+    private Mono<ResponseEntity<Object>> prepareGatewayResponse(ClientResponse response) {
+        if (passthrough) {
+            return response.toEntity(byte[].class)
+                    .map(entity -> bytesResponse(entity.getStatusCode(), entity.getHeaders(), entity.getBody()));
+        }
+        if (response.statusCode().isError()) {
+            return response.bodyToMono(byte[].class)
+                    .defaultIfEmpty(new byte[0])
+                    .map(body -> bytesResponse(response.statusCode(), null, body));
+        }
+        return response.toEntity(Object.class).map(BaseClient::prepareGatewayResponse);
+    }
+
+    private static ResponseEntity<Object> bytesResponse(HttpStatus status, @Nullable HttpHeaders headers,
+                                                        @Nullable byte[] body) {
+        HttpHeaders forwarded = new HttpHeaders();
+        if (headers != null) {
+            for (String name : PASSTHROUGH_HEADERS) {
+                List<String> values = headers.get(name);
+                if (values != null) {
+                    forwarded.put(name, values);
+                }
+            }
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        return new ResponseEntity<>(body, forwarded, status);
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
+    private static HttpHeaders defaultHeaders(Long userId) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
@@ -0,0 +1,173 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * Bounded cache of the GET responses of the server that carry an ETag, keyed by the URI with its query and the
+ * user header. A cached response is revalidated with {@code If-None-Match} on every request, so the server only
+ * sends a body when it has changed and a 304 is answered with the cached one.
+ * <p>
+ * Works both as an interceptor of {@link org.springframework.web.client.RestTemplate} and as a filter of
+ * {@link org.springframework.web.reactive.function.client.WebClient}.
+ */
+public class EtagCache implements ClientHttpRequestInterceptor {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final Cache<String, CachedResponse> responses;
+    private final long maxBodySize;
+
+    public EtagCache(String spec, long maxBodySize) {
+        this.responses = Caffeine.from(spec).build();
+        this.maxBodySize = maxBodySize;
+    }
+
+    Cache<String, CachedResponse> responses() {
+        return responses;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (request.getMethod() != HttpMethod.GET) {
+            return execution.execute(request, body);
+        }
+        String key = key(request.getURI(), request.getHeaders());
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached != null) {
+            request.getHeaders().setIfNoneMatch(cached.eTag);
+        }
+        ClientHttpResponse response = execution.execute(request, body);
+        if (cached != null && response.getRawStatusCode() == HttpStatus.NOT_MODIFIED.value()) {
+            response.close();
+            return cached.toClientHttpResponse();
+        }
+        HttpHeaders headers = HttpHeaders.readOnlyHttpHeaders(response.getHeaders());
+        if (response.getRawStatusCode() != HttpStatus.OK.value() || headers.getETag() == null) {
+            responses.invalidate(key);
+            return response;
+        }
+        byte[] bytes;
+        try (response) {
+            bytes = StreamUtils.copyToByteArray(response.getBody());
+        }
+        return store(key, headers, bytes).toClientHttpResponse();
+    }
+
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> {
+            if (request.method() != HttpMethod.GET) {
+                return next.exchange(request);
+            }
+            String key = key(request.url(), request.headers());
+            CachedResponse cached = responses.getIfPresent(key);
+            ClientRequest conditional = cached == null ? request : ClientRequest.from(request)
+                    .headers(headers -> headers.setIfNoneMatch(cached.eTag))
+                    .build();
+            return next.exchange(conditional).flatMap(response -> {
+                if (cached != null && response.rawStatusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                    return response.releaseBody().thenReturn(cached.toClientResponse(response));
+                }
+                HttpHeaders headers = response.headers().asHttpHeaders();
+                if (response.rawStatusCode() != HttpStatus.OK.value() || headers.getETag() == null) {
+                    responses.invalidate(key);
+                    return Mono.just(response);
+                }
+                return response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(new byte[0])
+                        .map(bytes -> store(key, headers, bytes).toClientResponse(response));
+            });
+        };
+    }
+
+    private CachedResponse store(String key, HttpHeaders headers, byte[] body) {
+        CachedResponse response = new CachedResponse(headers, body);
+        if (body.length <= maxBodySize) {
+            responses.put(key, response);
+        } else {
+            responses.invalidate(key);
+        }
+        return response;
+    }
+
+    private static String key(URI uri, HttpHeaders headers) {
+        String user = headers.getFirst(USER_HEADER);
+        return (user == null ? "" : user) + " " + uri;
+    }
+
+    static final class CachedResponse {
+        private final String eTag;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        private CachedResponse(HttpHeaders headers, byte[] body) {
+            this.eTag = headers.getETag();
+            this.headers = new HttpHeaders();
+            this.headers.putAll(headers);
+            this.body = body;
+        }
+
+        String eTag() {
+            return eTag;
+        }
+
+        private ClientHttpResponse toClientHttpResponse() {
+            return new ClientHttpResponse() {
+                @Override
+                public HttpStatus getStatusCode() {
+                    return HttpStatus.OK;
+                }
+
+                @Override
+                public int getRawStatusCode() {
+                    return HttpStatus.OK.value();
+                }
+
+                @Override
+                public String getStatusText() {
+                    return HttpStatus.OK.getReasonPhrase();
+                }
+
+                @Override
+                public HttpHeaders getHeaders() {
+                    return HttpHeaders.readOnlyHttpHeaders(headers);
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return new ByteArrayInputStream(body);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        private ClientResponse toClientResponse(ClientResponse response) {
+            return ClientResponse.create(HttpStatus.OK, response.strategies())
+                    .headers(h -> h.putAll(headers))
+                    .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pooled Apache HttpClient shared by all clients of the server, so they reuse kept-alive connections and
+ * a slow server makes requests fail after the lease timeout instead of queueing without bound.
+ */
+@Configuration
+public class HttpClientConfig {
+    static final String POOL_NAME = "shareit-server";
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager shareItServerConnectionManager(
+            @Value("${shareit-server.pool.max-total}") int maxTotal,
+            @Value("${shareit-server.pool.max-per-route}") int maxPerRoute,
+            @Value("${shareit-server.pool.validate-after-inactivity}") Duration validateAfterInactivity) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity((int) validateAfterInactivity.toMillis());
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient shareItServerHttpClient(
+            PoolingHttpClientConnectionManager shareItServerConnectionManager,
+            @Value("${shareit-server.pool.connect-timeout}") Duration connectTimeout,
+            @Value("${shareit-server.pool.read-timeout}") Duration readTimeout,
+            @Value("${shareit-server.pool.lease-timeout}") Duration leaseTimeout,
+            @Value("${shareit-server.pool.idle-timeout}") Duration idleTimeout,
+            @Value("${shareit-server.pool.keep-alive}") Duration keepAlive) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setSocketTimeout((int) readTimeout.toMillis())
+                .setConnectionRequestTimeout((int) leaseTimeout.toMillis())
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(shareItServerConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy(keepAlive.toMillis()))
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory shareItServerRequestFactory(CloseableHttpClient shareItServerHttpClient) {
+        return new HttpComponentsClientHttpRequestFactory(shareItServerHttpClient);
+    }
+
+    /**
+     * Leased, available, pending and maximum connections of the pool, as {@code httpcomponents.httpclient.pool.*}.
+     */
+    @Bean
+    public MeterBinder shareItServerPoolMetrics(PoolingHttpClientConnectionManager shareItServerConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(shareItServerConnectionManager, POOL_NAME);
+    }
+
+    /**
+     * Keeps a connection alive as long as the server allows, but never longer than {@code maxKeepAliveMillis},
+     * also when the server does not say.
+     */
+    static ConnectionKeepAliveStrategy keepAliveStrategy(long maxKeepAliveMillis) {
+        return (response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? Math.min(keepAlive, maxKeepAliveMillis) : maxKeepAliveMillis;
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single-flight for idempotent requests to the server: while a request is in flight, identical requests subscribe
+ * to it instead of being sent again and all of them get its response. A request is forgotten as soon as it
+ * completes, so nothing is served after the server has answered.
+ */
+@Component
+@ConditionalOnProperty(value = "shareit-server.coalescing.enabled", havingValue = "true")
+public class RequestCoalescer {
+    static final String REQUESTS = "shareit.gateway.requests.coalesced";
+    static final String IN_FLIGHT = "shareit.gateway.requests.in-flight";
+
+    private final ConcurrentMap<String, Mono<ResponseEntity<Object>>> inFlight = new ConcurrentHashMap<>();
+    private final Counter sent;
+    private final Counter joined;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.sent = Counter.builder(REQUESTS)
+                .description("Requests sent to the server because no identical request was in flight")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.joined = Counter.builder(REQUESTS)
+                .description("Requests that shared the response of an identical request in flight")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT, inFlight, ConcurrentMap::size)
+                .description("Distinct requests in flight to the server")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to the request in flight under {@code key}, or sends {@code request} and shares it under the key
+     * until it completes.
+     */
+    public Mono<ResponseEntity<Object>> coalesce(String key, Mono<ResponseEntity<Object>> request) {
+        return Mono.defer(() -> {
+            Mono<ResponseEntity<Object>> existing = inFlight.get(key);
+            if (existing != null) {
+                joined.increment();
+                return existing;
+            }
+            AtomicReference<Mono<ResponseEntity<Object>>> self = new AtomicReference<>();
+            Mono<ResponseEntity<Object>> shared = request
+                    .doFinally(signal -> inFlight.remove(key, self.get()))
+                    .cache();
+            self.set(shared);
+            existing = inFlight.putIfAbsent(key, shared);
+            if (existing != null) {
+                joined.increment();
+                return existing;
+            }
+            sent.increment();
+            return shared;
+        });
+    }
+}
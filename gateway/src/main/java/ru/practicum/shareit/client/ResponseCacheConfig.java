@@ -0,0 +1,56 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * Conditional GET end to end: the gateway answers a client's {@code If-None-Match} with 304 using the ETag forwarded
+ * from the server, and with {@code shareit-server.cache.enabled} it also keeps the tagged responses of the server
+ * in an {@link EtagCache}, so an unchanged resource is revalidated without its body crossing either hop.
+ */
+@Configuration
+public class ResponseCacheConfig {
+    static final String CACHE_NAME = "shareit-server.responses";
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> etagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/items/*", "/requests/*", "/users/*");
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.cache.enabled", havingValue = "true")
+    public EtagCache shareItServerResponseCache(@Value("${shareit-server.cache.spec}") String spec,
+                                                @Value("${shareit-server.cache.max-body-size}") DataSize maxBodySize) {
+        return new EtagCache(spec, maxBodySize.toBytes());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.cache.enabled", havingValue = "true")
+    public RestTemplateCustomizer shareItServerResponseCacheInterceptor(EtagCache shareItServerResponseCache) {
+        return restTemplate -> restTemplate.getInterceptors().add(shareItServerResponseCache);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.cache.enabled", havingValue = "true")
+    public WebClientCustomizer shareItServerResponseCacheFilter(EtagCache shareItServerResponseCache) {
+        return builder -> builder.filter(shareItServerResponseCache.filter());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.cache.enabled", havingValue = "true")
+    public MeterBinder shareItServerResponseCacheMetrics(EtagCache shareItServerResponseCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, shareItServerResponseCache.responses(), CACHE_NAME);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.client;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking client of the server for {@code shareit-server.mode=reactive}. A request waiting for a connection
+ * or a response holds no thread, so the number of requests in flight is bounded by the pool and its pending queue
+ * rather than by the servlet threads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit-server.mode", havingValue = "reactive")
+public class WebClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider shareItServerConnectionProvider(
+            @Value("${shareit-server.reactive.max-connections}") int maxConnections,
+            @Value("${shareit-server.reactive.max-pending}") int maxPending,
+            @Value("${shareit-server.pool.lease-timeout}") Duration leaseTimeout,
+            @Value("${shareit-server.pool.idle-timeout}") Duration idleTimeout) {
+        return ConnectionProvider.builder(HttpClientConfig.POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxPending)
+                .pendingAcquireTimeout(leaseTimeout)
+                .maxIdleTime(idleTimeout)
+                .evictInBackground(idleTimeout)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient shareItServerWebClient(
+            WebClient.Builder builder,
+            ConnectionProvider shareItServerConnectionProvider,
+            @Value("${shareit-server.pool.connect-timeout}") Duration connectTimeout,
+            @Value("${shareit-server.pool.read-timeout}") Duration readTimeout) {
+        HttpClient httpClient = HttpClient.create(shareItServerConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
@@ -4,59 +4,86 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory requestFactory, Optional<WebClient> webClient,
+                      @Value("${shareit-server.passthrough}") boolean passthrough,
+                      Optional<RequestCoalescer> coalescer) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                webClient.map(web -> web.mutate().baseUrl(serverUrl + API_PREFIX).build()).orElse(null),
+                passthrough,
+                coalescer.orElse(null)
         );
     }
 
-    public ResponseEntity<Object> addNewItem(Long userId, ItemDto itemDto) {
+    /**
+     * Search results do not depend on the user, so identical searches of different users share one request.
+     */
+    @Override
+    protected boolean dependsOnUser(String path) {
+        return !path.startsWith("/search");
+    }
+
+    public Mono<ResponseEntity<Object>> addNewItem(Long userId, ItemDto itemDto) {
         return post("", userId, itemDto);
     }
 
-    public ResponseEntity<Object> updateItem(Long itemId, Long userId, ItemDto itemDto) {
+    public Mono<ResponseEntity<Object>> updateItem(Long itemId, Long userId, ItemDto itemDto) {
         return patch("/" + itemId, userId, itemDto);
     }
 
-    public ResponseEntity<Object> getItem(Long itemId, Long userId) {
+    public Mono<ResponseEntity<Object>> getItem(Long itemId, Long userId) {
         return get("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getItemsByOwner(Long userId, Long from, Integer size) {
+    public Mono<ResponseEntity<Object>> getAvailability(Long itemId, Long userId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getItemsByOwner(Long userId, Long from, Integer size, String after) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("?from={from}&size={size}", userId, parameters);
+        return getPage("?from={from}&size={size}", userId, parameters, after);
     }
 
-    public ResponseEntity<Object> search(Long userId, String text, Long from, Integer size) {
+    public Mono<ResponseEntity<Object>> search(Long userId, String text, Long from, Integer size, String after) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return getPage("/search?text={text}&from={from}&size={size}", userId, parameters, after);
     }
 
-    public ResponseEntity<Object> addComment(Long itemId, Long userId, CommentDto commentDto) {
+    public Mono<ResponseEntity<Object>> addComment(Long itemId, Long userId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
 }
@@ -4,13 +4,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class RequestClient extends BaseClient {
@@ -18,32 +22,38 @@ public class RequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public RequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public RequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ClientHttpRequestFactory requestFactory, Optional<WebClient> webClient,
+                         @Value("${shareit-server.passthrough}") boolean passthrough,
+                         Optional<RequestCoalescer> coalescer) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                webClient.map(web -> web.mutate().baseUrl(serverUrl + API_PREFIX).build()).orElse(null),
+                passthrough,
+                coalescer.orElse(null)
         );
     }
 
-    public ResponseEntity<Object> createNewRequest(Long userId, ItemRequestDto itemRequestDto) {
+    public Mono<ResponseEntity<Object>> createNewRequest(Long userId, ItemRequestDto itemRequestDto) {
         return post("", userId, itemRequestDto);
     }
 
-    public ResponseEntity<Object> getUsersRequests(Long userId) {
+    public Mono<ResponseEntity<Object>> getUsersRequests(Long userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getAllRequestsPageable(Long userId, Long from, Integer size) {
+    public Mono<ResponseEntity<Object>> getAllRequestsPageable(Long userId, Long from, Integer size, String after) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        return getPage("/all?from={from}&size={size}", userId, parameters, after);
     }
 
-    public ResponseEntity<Object> getRequestById(Long requestId, Long userId) {
+    public Mono<ResponseEntity<Object>> getRequestById(Long requestId, Long userId) {
         return get("/" + requestId, userId);
     }
 }
@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
@@ -21,29 +22,30 @@ public class RequestController {
     private final RequestClient requestClient;
 
     @PostMapping
-    public ResponseEntity<Object> createNewRequest(@Valid @RequestBody @NotNull ItemRequestDto itemRequestDto,
-                                                   @RequestHeader("X-Sharer-User-Id") Long requestorId) {
+    public Mono<ResponseEntity<Object>> createNewRequest(@Valid @RequestBody @NotNull ItemRequestDto itemRequestDto,
+                                                         @RequestHeader("X-Sharer-User-Id") Long requestorId) {
         log.info("create new item request = {} by user with id = {}", itemRequestDto, requestorId);
         return requestClient.createNewRequest(requestorId, itemRequestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUsersRequests(@RequestHeader("X-Sharer-User-Id") Long requestorId) {
+    public Mono<ResponseEntity<Object>> getUsersRequests(@RequestHeader("X-Sharer-User-Id") Long requestorId) {
         log.info("get all requests of user with id = {}", requestorId);
         return requestClient.getUsersRequests(requestorId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequestsPageable(
+    public Mono<ResponseEntity<Object>> getAllRequestsPageable(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @RequestParam(name = "from", required = false, defaultValue = "0") @Min(value = 0) Long from,
-            @RequestParam(name = "size", required = false, defaultValue = "10") @Min(value = 1) Integer size) {
-        log.info("get all requests from id = {} page size = {}", from, size);
-        return requestClient.getAllRequestsPageable(userId, from, size);
+            @RequestParam(name = "size", required = false, defaultValue = "10") @Min(value = 1) Integer size,
+            @RequestParam(name = "after", required = false) String after) {
+        log.info("get all requests from id = {} page size = {} after = {}", from, size, after);
+        return requestClient.getAllRequestsPageable(userId, from, size, after);
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getRequestById(@RequestHeader("X-Sharer-User-Id") Long requestorId,
+    public Mono<ResponseEntity<Object>> getRequestById(@RequestHeader("X-Sharer-User-Id") Long requestorId,
                                          @PathVariable("requestId") Long requestId) {
         log.info("get request with id = {}", requestId);
         return requestClient.getRequestById(requestId, requestorId);
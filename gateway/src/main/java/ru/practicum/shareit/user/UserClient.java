@@ -4,44 +4,55 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.util.Optional;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory requestFactory, Optional<WebClient> webClient,
+                      @Value("${shareit-server.passthrough}") boolean passthrough,
+                      Optional<RequestCoalescer> coalescer) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                webClient.map(web -> web.mutate().baseUrl(serverUrl + API_PREFIX).build()).orElse(null),
+                passthrough,
+                coalescer.orElse(null)
         );
     }
 
-    public ResponseEntity<Object> addNewUser(UserDto userDto) {
+    public Mono<ResponseEntity<Object>> addNewUser(UserDto userDto) {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> getUsers() {
+    public Mono<ResponseEntity<Object>> getUsers() {
         return get("");
     }
 
-    public ResponseEntity<Object> findUser(long userId) {
+    public Mono<ResponseEntity<Object>> findUser(long userId) {
         return get("/" + userId);
     }
 
-    public ResponseEntity<Object> updateUser(long userId, UserDto userDto) {
+    public Mono<ResponseEntity<Object>> updateUser(long userId, UserDto userDto) {
         return patch("/" + userId, userDto);
     }
 
-    public ResponseEntity<Object> deleteUser(long userId) {
+    public Mono<ResponseEntity<Object>> deleteUser(long userId) {
         return delete("/" + userId);
     }
 }
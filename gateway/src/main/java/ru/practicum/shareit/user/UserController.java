@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.Valid;
@@ -20,24 +21,24 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<Object> addNewUser(@RequestBody @NotNull @Valid UserDto userDto) {
+    public Mono<ResponseEntity<Object>> addNewUser(@RequestBody @NotNull @Valid UserDto userDto) {
         log.info("save new user = {}", userDto);
         return userClient.addNewUser(userDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUsers() {
+    public Mono<ResponseEntity<Object>> getUsers() {
         return userClient.getUsers();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Object> findUser(@PathVariable("id") Long id) {
+    public Mono<ResponseEntity<Object>> findUser(@PathVariable("id") Long id) {
         log.info("get user with id = {}", id);
         return userClient.findUser(id);
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<Object> updateUser(@PathVariable("id") Long id,
+    public Mono<ResponseEntity<Object>> updateUser(@PathVariable("id") Long id,
                               @RequestBody @NotNull UserDto userDto) {
         userDto.setId(id);
         log.info("update user = {}", userDto);
@@ -45,7 +46,7 @@ public class UserController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Object> deleteUser(@PathVariable("id") Long id) {
+    public Mono<ResponseEntity<Object>> deleteUser(@PathVariable("id") Long id) {
         log.info("delete user with id = {}", id);
         return userClient.deleteUser(id);
     }
@@ -9,12 +9,23 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookingController.class)
@@ -73,4 +84,43 @@ class BookingControllerTest {
                         .header("X-Sharer-User-Id", 1L))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void approveBookings_whenBatchNotValid_thenReturnStatusBadRequest() throws Exception {
+        List<List<BookingApprovalDto>> batches = List.of(
+                List.of(),
+                List.of(new BookingApprovalDto(null, true)),
+                List.of(new BookingApprovalDto(1L, null)),
+                Collections.nCopies(BookingController.MAX_BATCH_SIZE + 1, new BookingApprovalDto(1L, true))
+        );
+
+        for (List<BookingApprovalDto> batch : batches) {
+            mockMvc.perform(patch("/bookings/batch")
+                            .content(mapper.writeValueAsString(batch))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1L))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(bookingClient);
+    }
+
+    @Test
+    void approveBookings_whenBatchValid_thenForwardToServer() throws Exception {
+        when(bookingClient.approveBookings(eq(1L), anyList())).thenReturn(Mono.just(ResponseEntity.ok(List.of())));
+
+        MvcResult result = mockMvc.perform(patch("/bookings/batch")
+                        .content(mapper.writeValueAsString(List.of(new BookingApprovalDto(1L, true),
+                                new BookingApprovalDto(2L, false))))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        verify(bookingClient).approveBookings(eq(1L), argThat(batch -> batch.size() == 2));
+    }
+}
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import ru.practicum.shareit.item.ItemClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaseClientTest {
+    private static final String ITEM = "{\"id\":1,\"name\":\"drill\"}";
+    private static final String NOT_FOUND = "{\"error\":\"item 2 not found\"}";
+
+    private static HttpServer server;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items/1", exchange -> respond(exchange, 200, ITEM));
+        server.createContext("/items/2", exchange -> respond(exchange, 404, NOT_FOUND));
+        server.createContext("/items", exchange -> {
+            exchange.getResponseHeaders().set(BaseClient.NEXT_CURSOR_HEADER, "cursor-10");
+            respond(exchange, 200, "[]");
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getItem_whenPassthrough_thenForwardBytesAndSelectedHeaders(boolean reactive) {
+        ResponseEntity<Object> response = send(client(reactive, true), 1L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(ITEM.getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals("\"v1\"", response.getHeaders().getETag());
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.DATE));
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getItem_whenPassthroughAndError_thenForwardBytesAndSelectedHeaders(boolean reactive) {
+        ResponseEntity<Object> response = send(client(reactive, true), 2L);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertArrayEquals(NOT_FOUND.getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getItemsByOwner_whenPassthrough_thenForwardNextCursor(boolean reactive) {
+        ResponseEntity<Object> response = client(reactive, true).getItemsByOwner(1L, 0L, 10, null)
+                .block(Duration.ofSeconds(5));
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("cursor-10", response.getHeaders().getFirst(BaseClient.NEXT_CURSOR_HEADER));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getItem_whenNotPassthrough_thenParseBody(boolean reactive) {
+        ResponseEntity<Object> response = send(client(reactive, false), 1L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("id", 1, "name", "drill"), response.getBody());
+    }
+
+    private static ResponseEntity<Object> send(ItemClient client, Long itemId) {
+        ResponseEntity<Object> response = client.getItem(itemId, 1L).block(Duration.ofSeconds(5));
+        assertNotNull(response);
+        return response;
+    }
+
+    private static ItemClient client(boolean reactive, boolean passthrough) {
+        return new ItemClient("http://localhost:" + server.getAddress().getPort(), new RestTemplateBuilder(),
+                new SimpleClientHttpRequestFactory(), reactive ? Optional.of(WebClient.create()) : Optional.empty(),
+                passthrough, Optional.empty());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        exchange.getResponseHeaders().set(HttpHeaders.ETAG, "\"v1\"");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import ru.practicum.shareit.item.ItemClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EtagCacheTest {
+    private static final String SPEC = "maximumSize=100";
+
+    private static HttpServer server;
+    private static final AtomicInteger version = new AtomicInteger();
+    private static final List<String> ifNoneMatch = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items/1", EtagCacheTest::respond);
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @BeforeEach
+    void setup() {
+        version.set(1);
+        ifNoneMatch.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getItem_whenUnchanged_thenRevalidateAndServeCachedBody(boolean reactive) {
+        EtagCache cache = new EtagCache(SPEC, 1024);
+        ItemClient client = client(cache, reactive);
+
+        ResponseEntity<Object> first = send(client, 1L);
+        ResponseEntity<Object> second = send(client, 1L);
+
+        assertEquals(List.of("", "\"v1\""), ifNoneMatch);
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals("\"v1\"", second.getHeaders().getETag());
+        assertArrayEquals((byte[]) first.getBody(), (byte[]) second.getBody());
+        assertEquals(1, cache.responses().estimatedSize());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getItem_whenChanged_thenReplaceCachedBody(boolean reactive) {
+        EtagCache cache = new EtagCache(SPEC, 1024);
+        ItemClient client = client(cache, reactive);
+        send(client, 1L);
+
+        version.set(2);
+        ResponseEntity<Object> changed = send(client, 1L);
+        ResponseEntity<Object> cached = send(client, 1L);
+
+        assertEquals(List.of("", "\"v1\"", "\"v2\""), ifNoneMatch);
+        assertArrayEquals(body(2), (byte[]) changed.getBody());
+        assertArrayEquals(body(2), (byte[]) cached.getBody());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getItem_whenAnotherUser_thenNotServedFromCache(boolean reactive) {
+        ItemClient client = client(new EtagCache(SPEC, 1024), reactive);
+
+        send(client, 1L);
+        send(client, 2L);
+
+        assertEquals(List.of("", ""), ifNoneMatch);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getItem_whenBodyTooLarge_thenNotCached(boolean reactive) {
+        EtagCache cache = new EtagCache(SPEC, 1);
+        ItemClient client = client(cache, reactive);
+
+        send(client, 1L);
+        ResponseEntity<Object> second = send(client, 1L);
+
+        assertEquals(List.of("", ""), ifNoneMatch);
+        assertArrayEquals(body(1), (byte[]) second.getBody());
+        assertEquals(0, cache.responses().estimatedSize());
+    }
+
+    private static ResponseEntity<Object> send(ItemClient client, long userId) {
+        ResponseEntity<Object> response = client.getItem(1L, userId).block(Duration.ofSeconds(5));
+        assertNotNull(response);
+        return response;
+    }
+
+    private static ItemClient client(EtagCache cache, boolean reactive) {
+        return new ItemClient("http://localhost:" + server.getAddress().getPort(),
+                new RestTemplateBuilder().additionalInterceptors(cache), new SimpleClientHttpRequestFactory(),
+                reactive ? Optional.of(WebClient.builder().filter(cache.filter()).build()) : Optional.empty(), true,
+                Optional.empty());
+    }
+
+    private static byte[] body(int version) {
+        return ("{\"version\":" + version + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange) throws IOException {
+        String eTag = "\"v" + version.get() + "\"";
+        String condition = exchange.getRequestHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        ifNoneMatch.add(condition == null ? "" : condition);
+        exchange.getResponseHeaders().set(HttpHeaders.ETAG, eTag);
+        if (eTag.equals(condition)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body(version.get());
+        exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.request.RequestClient;
+import ru.practicum.shareit.user.UserClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"shareit-server.pool.max-total=7", "shareit-server.pool.max-per-route=3"})
+class HttpClientConfigTest {
+    @Autowired
+    private PoolingHttpClientConnectionManager connectionManager;
+    @Autowired
+    private ClientHttpRequestFactory requestFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private List<BaseClient> clients;
+
+    @Test
+    void connectionManager_whenConfigured_thenLimitsApplied() {
+        assertEquals(7, connectionManager.getMaxTotal());
+        assertEquals(3, connectionManager.getDefaultMaxPerRoute());
+    }
+
+    @Test
+    void clients_whenCreated_thenShareOneRequestFactory() {
+        assertEquals(4, clients.size());
+        for (BaseClient client : clients) {
+            assertTrue(client instanceof ItemClient || client instanceof BookingClient
+                    || client instanceof UserClient || client instanceof RequestClient);
+            RestTemplate rest = (RestTemplate) ReflectionTestUtils.getField(client, "rest");
+            assertNotNull(rest);
+            ClientHttpRequestFactory factory = rest.getRequestFactory();
+            if (factory instanceof InterceptingClientHttpRequestFactory) {
+                factory = (ClientHttpRequestFactory) ReflectionTestUtils.getField(factory, "requestFactory");
+            }
+            assertSame(requestFactory, factory);
+            assertNull(client.web);
+        }
+    }
+
+    @Test
+    void poolMetrics_whenBound_thenExposeLimitsOfSharedPool() {
+        assertEquals(7.0, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", HttpClientConfig.POOL_NAME).gauge().value());
+        assertEquals(0.0, meterRegistry.get("httpcomponents.httpclient.pool.total.pending")
+                .tag("httpclient", HttpClientConfig.POOL_NAME).gauge().value());
+    }
+
+    @Test
+    void keepAliveStrategy_whenServerSilentOrGenerous_thenCapAtMaximum() {
+        ConnectionKeepAliveStrategy strategy = HttpClientConfig.keepAliveStrategy(1000);
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+
+        assertEquals(1000, strategy.getKeepAliveDuration(response, new BasicHttpContext()));
+        response.setHeader("Keep-Alive", "timeout=5");
+        assertEquals(1000, strategy.getKeepAliveDuration(response, new BasicHttpContext()));
+        response.setHeader("Keep-Alive", "timeout=0");
+        assertEquals(1000, strategy.getKeepAliveDuration(response, new BasicHttpContext()));
+    }
+}
@@ -0,0 +1,198 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import ru.practicum.shareit.item.ItemClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the gateway in the reactive mode with only {@link #SERVLET_THREADS} servlet threads in front of a stub server
+ * that holds its responses until {@link #IN_FLIGHT} requests have arrived, which is only possible when the servlet
+ * threads are not blocked by the requests they forward.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.mode=reactive",
+        "shareit-server.cache.enabled=true",
+        "server.tomcat.threads.max=" + ReactiveModeTest.SERVLET_THREADS,
+        "server.tomcat.threads.min-spare=" + ReactiveModeTest.SERVLET_THREADS
+})
+class ReactiveModeTest {
+    static final int SERVLET_THREADS = 2;
+    private static final int IN_FLIGHT = 16;
+
+    private static HttpServer server;
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+    private static final CountDownLatch arrived = new CountDownLatch(IN_FLIGHT);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private ItemClient itemClient;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void shareItServer(DynamicPropertyRegistry registry) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), IN_FLIGHT * 2);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/items/1", exchange -> respond(exchange, 200, "{\"id\":1,\"name\":\""
+                + exchange.getRequestHeaders().getFirst("X-Sharer-User-Id") + "\"}"));
+        server.createContext("/items/2", exchange -> respond(exchange, 404, "{\"error\":\"item 2 not found\"}"));
+        server.createContext("/items/3", ReactiveModeTest::respondWhenAllArrived);
+        server.createContext("/items/4", exchange -> {
+            exchange.getResponseHeaders().set(HttpHeaders.ETAG, "\"v1\"");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst(HttpHeaders.IF_NONE_MATCH))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else {
+                respond(exchange, 200, "{\"id\":4}");
+            }
+        });
+        server.start();
+        registry.add("shareit-server.url", () -> "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void client_whenReactiveMode_thenSendWithWebClient() {
+        assertNotNull(itemClient.web);
+
+        ResponseEntity<Object> response = itemClient.getItem(1L, 7L).block(Duration.ofSeconds(5));
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals("{\"id\":1,\"name\":\"7\"}".getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+    }
+
+    @Test
+    void client_whenServerRespondsWithError_thenForwardStatusAndBody() {
+        ResponseEntity<Object> response = itemClient.getItem(2L, 7L).block(Duration.ofSeconds(5));
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertArrayEquals("{\"error\":\"item 2 not found\"}".getBytes(StandardCharsets.UTF_8),
+                (byte[]) response.getBody());
+    }
+
+    @Test
+    void gateway_whenPassthrough_thenWriteServerBytesAsJson() {
+        ResponseEntity<String> response = gateway().get()
+                .uri("/items/1")
+                .header("X-Sharer-User-Id", "7")
+                .retrieve()
+                .toEntity(String.class)
+                .block(Duration.ofSeconds(5));
+
+        assertNotNull(response);
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals("{\"id\":1,\"name\":\"7\"}", response.getBody());
+    }
+
+    @Test
+    void gateway_whenIfNoneMatchesServerTag_thenReturnNotModifiedFromCache() {
+        ResponseEntity<String> first = gateway().get()
+                .uri("/items/4")
+                .header("X-Sharer-User-Id", "1")
+                .retrieve()
+                .toEntity(String.class)
+                .block(Duration.ofSeconds(5));
+        assertNotNull(first);
+        assertEquals("\"v1\"", first.getHeaders().getETag());
+
+        HttpStatus status = gateway().get()
+                .uri("/items/4")
+                .header("X-Sharer-User-Id", "1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v1\"")
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, status);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", ResponseCacheConfig.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void gateway_whenNotValid_thenRejectWithoutForwarding() {
+        HttpStatus status = gateway().post()
+                .uri("/items")
+                .header("X-Sharer-User-Id", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"\"}")
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(HttpStatus.BAD_REQUEST, status);
+    }
+
+    @Test
+    void gateway_whenMoreRequestsThanServletThreads_thenAllInFlightAtOnce() {
+        List<HttpStatus> statuses = Flux.range(0, IN_FLIGHT)
+                .flatMap(i -> gateway().get()
+                        .uri("/items/3")
+                        .header("X-Sharer-User-Id", String.valueOf(i))
+                        .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode())))
+                .collectList()
+                .block(Duration.ofSeconds(20));
+
+        assertNotNull(statuses);
+        assertEquals(IN_FLIGHT, statuses.size());
+        assertTrue(statuses.stream().allMatch(HttpStatus.OK::equals));
+        assertEquals(IN_FLIGHT, maxInFlight.get());
+    }
+
+    private WebClient gateway() {
+        return WebClient.create("http://localhost:" + port);
+    }
+
+    private static void respondWhenAllArrived(HttpExchange exchange) throws IOException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        arrived.countDown();
+        try {
+            arrived.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        respond(exchange, 200, "{}");
+        inFlight.decrementAndGet();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", MediaType.APPLICATION_JSON_VALUE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import ru.practicum.shareit.item.ItemClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+    private static final int CALLERS = 8;
+
+    private static HttpServer server;
+    private static final AtomicInteger received = new AtomicInteger();
+    private static volatile CountDownLatch release;
+
+    private MeterRegistry meterRegistry;
+    private RequestCoalescer coalescer;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), CALLERS * 2);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/items", RequestCoalescerTest::respondWhenReleased);
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer(meterRegistry);
+        received.set(0);
+        release = new CountDownLatch(1);
+    }
+
+    @Test
+    void coalesce_whenIdenticalRequestInFlight_thenSubscribeOnceAndShareResponse() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Sinks.One<ResponseEntity<Object>> response = Sinks.one();
+        Mono<ResponseEntity<Object>> request = response.asMono().doOnSubscribe(s -> subscriptions.incrementAndGet());
+
+        CompletableFuture<ResponseEntity<Object>> first = coalescer.coalesce("key", request).toFuture();
+        CompletableFuture<ResponseEntity<Object>> second = coalescer.coalesce("key", request).toFuture();
+        assertEquals(1.0, meterRegistry.get(RequestCoalescer.IN_FLIGHT).gauge().value());
+
+        ResponseEntity<Object> ok = ResponseEntity.ok("body");
+        response.tryEmitValue(ok);
+
+        assertSame(ok, first.join());
+        assertSame(ok, second.join());
+        assertEquals(1, subscriptions.get());
+        assertEquals(1.0, count("miss"));
+        assertEquals(1.0, count("hit"));
+        assertEquals(0.0, meterRegistry.get(RequestCoalescer.IN_FLIGHT).gauge().value());
+    }
+
+    @Test
+    void coalesce_whenDifferentKeys_thenSendEach() {
+        Sinks.One<ResponseEntity<Object>> response = Sinks.one();
+
+        coalescer.coalesce("a", response.asMono()).toFuture();
+        coalescer.coalesce("b", response.asMono()).toFuture();
+
+        assertEquals(2.0, count("miss"));
+        assertEquals(0.0, count("hit"));
+        assertEquals(2.0, meterRegistry.get(RequestCoalescer.IN_FLIGHT).gauge().value());
+    }
+
+    @Test
+    void coalesce_whenRequestCompleted_thenSendAgain() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<ResponseEntity<Object>> request = Mono.fromCallable(() -> {
+            subscriptions.incrementAndGet();
+            return ResponseEntity.ok().build();
+        });
+
+        coalescer.coalesce("key", request).block();
+        coalescer.coalesce("key", request).block();
+
+        assertEquals(2, subscriptions.get());
+        assertEquals(2.0, count("miss"));
+        assertEquals(0.0, count("hit"));
+    }
+
+    @Test
+    void coalesce_whenRequestFails_thenShareErrorAndForgetIt() {
+        Sinks.One<ResponseEntity<Object>> response = Sinks.one();
+        CompletableFuture<ResponseEntity<Object>> first = coalescer.coalesce("key", response.asMono()).toFuture();
+        CompletableFuture<ResponseEntity<Object>> second = coalescer.coalesce("key", response.asMono()).toFuture();
+
+        response.tryEmitError(new IllegalStateException("server is down"));
+
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+        assertNotNull(coalescer.coalesce("key", Mono.just(ResponseEntity.ok().build())).block());
+        assertEquals(2.0, count("miss"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getItem_whenSameUserConcurrently_thenSendOnce(boolean reactive) {
+        ItemClient client = client(reactive);
+
+        List<ResponseEntity<Object>> responses = sendConcurrently(i -> client.getItem(1L, 1L),
+                () -> count("hit") == CALLERS - 1);
+
+        assertTrue(responses.stream().allMatch(r -> r.getStatusCode() == HttpStatus.OK));
+        assertEquals(1, received.get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getItem_whenDifferentUsersConcurrently_thenSendForEachUser(boolean reactive) {
+        ItemClient client = client(reactive);
+
+        sendConcurrently(i -> client.getItem(1L, (long) i), () -> received.get() == CALLERS);
+
+        assertEquals(CALLERS, received.get());
+        assertEquals(0.0, count("hit"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void search_whenDifferentUsersConcurrently_thenSendOnce(boolean reactive) {
+        ItemClient client = client(reactive);
+
+        sendConcurrently(i -> client.search((long) i, "drill", 0L, 10, null), () -> count("hit") == CALLERS - 1);
+
+        assertEquals(1, received.get());
+    }
+
+    /**
+     * Sends the requests from separate threads and lets the server answer once {@code ready}, so all of them are
+     * in flight together also when the blocking client holds its thread.
+     */
+    private List<ResponseEntity<Object>> sendConcurrently(IntFunction<Mono<ResponseEntity<Object>>> request,
+                                                          BooleanSupplier ready) {
+        CompletableFuture<List<ResponseEntity<Object>>> responses = Flux.range(0, CALLERS)
+                .flatMap(i -> request.apply(i).subscribeOn(Schedulers.boundedElastic()))
+                .collectList()
+                .toFuture();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!ready.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        List<ResponseEntity<Object>> result = responses.orTimeout(10, TimeUnit.SECONDS).join();
+        assertEquals(CALLERS, result.size());
+        return result;
+    }
+
+    private ItemClient client(boolean reactive) {
+        return new ItemClient("http://localhost:" + server.getAddress().getPort(), new RestTemplateBuilder(),
+                new SimpleClientHttpRequestFactory(), reactive ? Optional.of(WebClient.create()) : Optional.empty(),
+                true, Optional.of(coalescer));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(RequestCoalescer.REQUESTS).tag("result", result).counter().count();
+    }
+
+    private static void respondWhenReleased(HttpExchange exchange) throws IOException {
+        received.incrementAndGet();
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = "[]".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", MediaType.APPLICATION_JSON_VALUE);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -8,7 +8,10 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
@@ -16,7 +19,10 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ItemController.class)
@@ -100,4 +106,31 @@ class ItemControllerTest {
                 .andExpect(status().isBadRequest());
         verify(itemClient, never()).addComment(any(), any(), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAvailability_whenValid_thenForwardToServer() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(3);
+        when(itemClient.getAvailability(1L, 1L, from, to)).thenReturn(Mono.just(ResponseEntity.ok().build()));
+
+        MvcResult result = mockMvc.perform(get("/items/{id}/availability", 1L)
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-04T00:00:00")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        verify(itemClient).getAvailability(1L, 1L, from, to);
+    }
+
+    @Test
+    void getAvailability_whenFromIsNotBeforeTo_thenReturnStatusBadRequest() throws Exception {
+        mockMvc.perform(get("/items/{id}/availability", 1L)
+                        .param("from", "2030-01-04T00:00:00")
+                        .param("to", "2030-01-01T00:00:00")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isBadRequest());
+        verify(itemClient, never()).getAvailability(any(), any(), any(), any());
+    }
+}
@@ -2,8 +2,12 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.pagination.PageCursor;
 
 import java.util.List;
 
@@ -35,6 +39,13 @@ public class BookingController {
         return bookingService.approveBooking(ownerId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingApprovalResultDto> approveBookings(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                          @RequestBody List<BookingApprovalDto> approvals) {
+        log.info("try to approve or reject {} bookings by user with id = {}", approvals.size(), ownerId);
+        return bookingService.approveBookings(ownerId, approvals);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDto getBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
                                  @PathVariable("bookingId") Long bookingId) {
@@ -43,25 +54,33 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDto> getUserBookings(
+    public ResponseEntity<List<BookingDto>> getUserBookings(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @RequestParam(name = "state") String state,
             @RequestParam(name = "from") Long from,
-            @RequestParam(name = "size") Integer size
+            @RequestParam(name = "size") Integer size,
+            @RequestParam(name = "after", required = false) String after
     ) {
-        log.info("get page of booking of user with id = {} with state = {} from id = {} size = {}",
-                userId, state, from, size);
-        return bookingService.getUserBookings(userId, state, from, size);
+        log.info("get page of booking of user with id = {} with state = {} from id = {} size = {} after = {}",
+                userId, state, from, size, after);
+        List<BookingDto> bookings = after == null
+                ? bookingService.getUserBookings(userId, state, from, size)
+                : bookingService.getUserBookingsAfter(userId, state, after, size);
+        return PageCursor.toResponse(bookings, size, b -> PageCursor.encode(b.getId()));
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getOwnerBookings(
+    public ResponseEntity<List<BookingDto>> getOwnerBookings(
             @RequestHeader("X-Sharer-User-Id") Long ownerId,
             @RequestParam(name = "state") String state,
             @RequestParam(name = "from") Long from,
-            @RequestParam(name = "size") Integer size) {
+            @RequestParam(name = "size") Integer size,
+            @RequestParam(name = "after", required = false) String after) {
         log.info("get all bookings for items with owner with id = {} and state = {}", ownerId, state);
-        return bookingService.getOwnerBookings(ownerId, state, from, size);
+        List<BookingDto> bookings = after == null
+                ? bookingService.getOwnerBookings(ownerId, state, from, size)
+                : bookingService.getOwnerBookingsAfter(ownerId, state, after, size);
+        return PageCursor.toResponse(bookings, size, b -> PageCursor.encode(b.getId()));
     }
 
 }
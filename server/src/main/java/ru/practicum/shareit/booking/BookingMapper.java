@@ -2,8 +2,11 @@ package ru.practicum.shareit.booking;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemInfoDto;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
 import ru.practicum.shareit.user.UserMapper;
 
 public class BookingMapper {
@@ -23,10 +26,25 @@ public class BookingMapper {
         );
     }
 
-    public static BookingInfoDto toBookingInfoDto(Booking booking) {
+    /**
+     * Builds the dto of a booking whose item is only a lazy reference, taking the item fields from its snapshot.
+     */
+    public static BookingDto toBookingDto(Booking booking, ItemSnapshot item) {
+        return new BookingDto(
+                booking.getId(),
+                booking.getStart(),
+                booking.getEnd(),
+                item.getId(),
+                new ItemInfoDto(item.getId(), item.getName(), item.getOwnerId()),
+                UserMapper.toUserInfoDto(booking.getBooker()),
+                booking.getStatus()
+        );
+    }
+
+    public static BookingInfoDto toBookingInfoDto(ItemBookingView booking) {
         return new BookingInfoDto(
                 booking.getId(),
-                booking.getBooker().getId(),
+                booking.getBookerId(),
                 booking.getStart(),
                 booking.getEnd());
     }
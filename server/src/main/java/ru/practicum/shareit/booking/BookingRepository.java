@@ -1,87 +1,241 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.booking.dto.BookingClaim;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.booking.model.Booking;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Optional<Booking> findFirstByItemIdIsAndEndIsBeforeOrderByEndDesc(Long id, LocalDateTime now);
-
-    Optional<Booking> findFirstByItemIdIsAndStartIsAfterOrderByStartAsc(Long id, LocalDateTime now);
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
 
-    List<Booking> findAllByBookerIdOrderByIdDesc(Long id, Pageable pageable);
-
-    List<Booking> findAllByItemIdIn(List<Long> ids);
+/**
+ * Read-only finders project rows straight into {@link BookingDto}, so listings neither hydrate nor dirty-check
+ * entities. {@link #findById} is kept for updates and fetches the item with the {@link Booking#WITH_ITEM} graph.
+ */
+public interface BookingRepository extends JpaRepository<Booking, Long> {
+    String BOOKING_DTO = " select new ru.practicum.shareit.booking.dto.BookingDto(b.id, b.start, b.end, " +
+            "i.id, i.name, i.owner.id, b.booker.id, b.status) " +
+            "from Booking b join b.item i ";
+
+    /**
+     * {@code LockOptions.SKIP_LOCKED}, rendered as {@code for update skip locked} where the database supports it.
+     */
+    String SKIP_LOCKED = "-2";
+
+    @Override
+    @EntityGraph(Booking.WITH_ITEM)
+    Optional<Booking> findById(Long id);
+
+    @Query(BOOKING_DTO +
+            "where b.id = ?1")
+    Optional<BookingDto> findDtoById(Long id);
+
+    /**
+     * Sets the status of the booking unless it already has it, has expired or the user does not own its item.
+     *
+     * @return the number of changed bookings, {@code 0} or {@code 1}
+     */
+    @Modifying
+    @Query(" update versioned Booking b set b.status = ?2 " +
+            "where b.id = ?1 " +
+            "and b.status <> ?2 " +
+            "and b.status <> 'EXPIRED' " +
+            "and b.item.id in (select i.id from Item i where i.owner.id = ?3)")
+    int updateStatus(Long id, BookingStatus status, Long ownerId);
+
+    /**
+     * Same as {@link #updateStatus} for several bookings at once.
+     */
+    @Modifying
+    @Query(" update versioned Booking b set b.status = ?2 " +
+            "where b.id in ?1 " +
+            "and b.status <> ?2 " +
+            "and b.status <> 'EXPIRED' " +
+            "and b.item.id in (select i.id from Item i where i.owner.id = ?3)")
+    int updateStatusIn(Collection<Long> ids, BookingStatus status, Long ownerId);
+
+    @Query(BOOKING_DTO +
+            "where b.id in ?1 " +
+            "and i.owner.id = ?2")
+    List<BookingDto> findAllOwnersBookingsByIdIn(Collection<Long> ids, Long ownerId);
+
+    /**
+     * Locks waiting bookings that should have started before {@code now}, oldest first. Rows locked by another
+     * transaction are skipped, so several sweepers claim disjoint batches.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = SKIP_LOCKED))
+    @Query(" select b.id as id, b.item.id as itemId from Booking b " +
+            "where b.status = 'WAITING' " +
+            "and b.start < ?1 " +
+            "order by b.start")
+    List<BookingClaim> claimStaleWaiting(LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query(" update versioned Booking b set b.status = 'EXPIRED' " +
+            "where b.id in ?1 " +
+            "and b.status = 'WAITING'")
+    int expireAllByIdIn(Collection<Long> ids);
+
+    @Query(BOOKING_DTO +
+            "where b.booker.id = ?1 " +
+            "and b.id < ?2 " +
+            "order by b.id desc")
+    List<BookingDto> findAllByBookerIdAndIdLessThanOrderByIdDesc(Long id, Long afterId, Pageable pageable);
+
+    /**
+     * Last (latest finished) and next (earliest upcoming) booking of every given item, at most two rows per item.
+     */
+    @Query(value = " select t.item_id as \"itemId\", t.last as \"last\", t.id as \"id\", " +
+            "t.booker_id as \"bookerId\", t.start_time as \"start\", t.end_time as \"end\" " +
+            "from (select b.item_id, true as last, b.id, b.booker_id, b.start_time, b.end_time, " +
+            "row_number() over (partition by b.item_id order by b.end_time desc) as rn " +
+            "from bookings b " +
+            "where b.item_id in (?1) " +
+            "and b.end_time < ?2 " +
+            "union all " +
+            "select b.item_id, false as last, b.id, b.booker_id, b.start_time, b.end_time, " +
+            "row_number() over (partition by b.item_id order by b.start_time) as rn " +
+            "from bookings b " +
+            "where b.item_id in (?1) " +
+            "and b.start_time > ?2) t " +
+            "where t.rn = 1", nativeQuery = true)
+    List<ItemBookingView> findLastAndNextBookings(List<Long> itemIds, LocalDateTime now);
+
+    /**
+     * Whether the user has a finished booking of the item, which also proves that both exist.
+     */
+    boolean existsByBookerIdAndItemIdAndEndIsBefore(Long bookerId, Long itemId, LocalDateTime now);
+
+    /**
+     * Intervals of the item that block new bookings, i.e. waiting for approval or approved.
+     */
+    @Query(" select b.id as id, b.start as start, b.end as end from Booking b " +
+            "where b.item.id = ?1 " +
+            "and b.status in ('WAITING', 'APPROVED')")
+    List<BookingInterval> findBlockingIntervals(Long itemId);
+
+    /**
+     * Version of the bookings of the item, raised by every write of its bookings.
+     */
+    @Query(value = "select i.bookings_version from items i where i.id = ?1", nativeQuery = true)
+    long findBookingsVersion(Long itemId);
+
+    /**
+     * Raises the bookings versions of the items and locks their rows until the transaction ends. The column is not
+     * mapped by {@code Item}, so the statement declares only the bookings space and cached items stay in place.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "update items set bookings_version = bookings_version + 1 where id in (?1)", nativeQuery = true)
+    int raiseBookingsVersions(Collection<Long> itemIds);
+
+    /**
+     * Raises the bookings versions of every item booked by the user, whose bookings are about to be deleted.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "update items set bookings_version = bookings_version + 1 " +
+            "where id in (select b.item_id from bookings b where b.booker_id = ?1)", nativeQuery = true)
+    int raiseBookingsVersionsOfBooker(Long bookerId);
+
+    @Query(" select b.id as id, b.start as start, b.end as end from Booking b " +
+            "where b.item.id = ?1 " +
+            "and b.status in ('WAITING', 'APPROVED') " +
+            "and b.start < ?3 " +
+            "and b.end > ?2 " +
+            "order by b.start")
+    List<BookingInterval> findBlockingIntervalsBetween(Long itemId, LocalDateTime from, LocalDateTime to);
 
-    @Query(" select b from Booking b " +
+    @Query(BOOKING_DTO +
             "where b.booker.id = ?1 " +
             "and b.status = 'REJECTED' " +
+            "and b.id < ?2 " +
             "order by b.id desc")
-    List<Booking> findAllRejected(Long id);
+    List<BookingDto> findAllRejected(Long id, Long afterId, Pageable pageable);
 
-    @Query(" select b from Booking b " +
+    @Query(BOOKING_DTO +
             "where b.booker.id = ?1 " +
             "and b.status = 'WAITING' " +
+            "and b.id < ?2 " +
             "order by b.id desc")
-    List<Booking> findAllWaiting(Long id);
+    List<BookingDto> findAllWaiting(Long id, Long afterId, Pageable pageable);
 
-    @Query(" select b from Booking b " +
+    @Query(BOOKING_DTO +
             "where b.booker.id = ?1 " +
             "and b.start > ?2 " +
+            "and b.id < ?3 " +
             "order by b.id desc")
-    List<Booking> findAllFutureBookings(Long id, LocalDateTime now);
+    List<BookingDto> findAllFutureBookings(Long id, LocalDateTime now, Long afterId, Pageable pageable);
 
-    @Query(" select b from Booking b " +
+    @Query(BOOKING_DTO +
             "where b.booker.id = ?1 " +
             "and b.end < ?2 " +
+            "and b.id < ?3 " +
             "order by b.id desc")
-    List<Booking> findAllPastBookings(Long id, LocalDateTime now);
+    List<BookingDto> findAllPastBookings(Long id, LocalDateTime now, Long afterId, Pageable pageable);
 
-    @Query(" select b from Booking b " +
+    @Query(BOOKING_DTO +
             "where b.booker.id = ?1 " +
             "and b.start < ?2 " +
             "and b.end > ?2 " +
+            "and b.id < ?3 " +
             "order by b.id desc")
-    List<Booking> findAllCurrentBookings(Long id, LocalDateTime now);
+    List<BookingDto> findAllCurrentBookings(Long id, LocalDateTime now, Long afterId, Pageable pageable);
 
-    @Query(" select b from Booking b " +
-            "where b.item.owner.id = ?1 " +
+    @Query(BOOKING_DTO +
+            "where i.owner.id = ?1 " +
+            "and b.id < ?2 " +
             "order by b.id desc")
-    List<Booking> findAllOwnersBookings(Long id, Pageable pageable);
+    List<BookingDto> findAllOwnersBookings(Long id, Long afterId, Pageable pageable);
 
-    @Query(" select b from Booking b " +
-            "where b.item.owner.id = ?1 " +
+    @Query(BOOKING_DTO +
+            "where i.owner.id = ?1 " +
             "and b.end < ?2 " +
+            "and b.id < ?3 " +
             "order by b.id desc")
-    List<Booking> findAllOwnersPastBookings(Long id, LocalDateTime now);
+    List<BookingDto> findAllOwnersPastBookings(Long id, LocalDateTime now, Long afterId, Pageable pageable);
 
-    @Query(" select b from Booking b " +
-            "where b.item.owner.id = ?1 " +
+    @Query(BOOKING_DTO +
+            "where i.owner.id = ?1 " +
             "and b.start > ?2 " +
+            "and b.id < ?3 " +
             "order by b.id desc")
-    List<Booking> findAllOwnersFutureBookings(Long id, LocalDateTime now);
+    List<BookingDto> findAllOwnersFutureBookings(Long id, LocalDateTime now, Long afterId, Pageable pageable);
 
-    @Query(" select b from Booking b " +
-            "where b.item.owner.id = ?1 " +
+    @Query(BOOKING_DTO +
+            "where i.owner.id = ?1 " +
             "and b.start < ?2 " +
             "and b.end > ?2 " +
+            "and b.id < ?3 " +
             "order by b.id desc")
-    List<Booking> findAllOwnersCurrentBookings(Long id, LocalDateTime now);
+    List<BookingDto> findAllOwnersCurrentBookings(Long id, LocalDateTime now, Long afterId, Pageable pageable);
 
-    @Query(" select b from Booking b " +
-            "where b.item.owner.id = ?1 " +
+    @Query(BOOKING_DTO +
+            "where i.owner.id = ?1 " +
             "and b.status = 'REJECTED' " +
+            "and b.id < ?2 " +
             "order by b.id desc")
-    List<Booking> findAllOwnersRejected(Long id);
+    List<BookingDto> findAllOwnersRejected(Long id, Long afterId, Pageable pageable);
 
-    @Query(" select b from Booking b " +
-            "where b.item.owner.id = ?1 " +
+    @Query(BOOKING_DTO +
+            "where i.owner.id = ?1 " +
             "and b.status = 'WAITING' " +
+            "and b.id < ?2 " +
             "order by b.id desc")
-    List<Booking> findAllOwnersWaiting(Long id);
+    List<BookingDto> findAllOwnersWaiting(Long id, Long afterId, Pageable pageable);
 }
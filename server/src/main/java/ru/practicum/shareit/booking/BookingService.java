@@ -1,8 +1,11 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface BookingService {
@@ -10,11 +13,19 @@ public interface BookingService {
 
     BookingDto approveBooking(Long ownerId, Long bookingId, Boolean approved);
 
+    List<BookingApprovalResultDto> approveBookings(Long ownerId, List<BookingApprovalDto> approvals);
+
     BookingDto getBooking(Long userId, Long bookingId);
 
     List<BookingDto> getUserBookings(Long userId, String state, Long from, Integer size);
 
+    List<BookingDto> getUserBookingsAfter(Long userId, String state, String after, Integer size);
+
     List<BookingDto> getOwnerBookings(Long ownerId, String state, Long from, Integer size);
 
+    List<BookingDto> getOwnerBookingsAfter(Long ownerId, String state, String after, Integer size);
+
     Booking checkIfBookingExist(Long id);
+
+    int expireWaitingBookings(LocalDateTime now, int limit);
 }
@@ -4,5 +4,9 @@ public enum BookingStatus {
     WAITING,
     APPROVED,
     REJECTED,
-    CANCELED
+    CANCELED,
+    /**
+     * Terminal status of a booking that was still waiting for approval when it should have started.
+     */
+    EXPIRED
 }
@@ -0,0 +1,312 @@
+package ru.practicum.shareit.booking.availability;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.AvailabilityDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.cache.CacheConfig;
+import ru.practicum.shareit.exeption.BadRequestException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps an {@link IntervalTree} of the blocking bookings of recently booked items and rejects overlapping ones.
+ * <p>
+ * A writer locks the item until its transaction completes and changes the tree only after the commit, so the next
+ * writer of the item always sees either the committed booking in the tree or, if the tree was evicted meanwhile,
+ * in the database it is reloaded from. Locks are striped, so an evicted tree never takes its lock with it.
+ * A batch locks all stripes of its items in ascending order, so batches never wait on each other in a cycle.
+ * Every writer updates its booking rows before it takes a stripe and waits on no row while holding one, so row
+ * locks and stripes are always taken in the same order.
+ * The locks and trees are local to the JVM. Across instances sharing one database, the PostgreSQL exclusion
+ * constraint on waiting and approved bookings rejects the overlaps a tree misses, and an overlap found in a cached
+ * tree is checked again against the database before a booking is rejected, since another instance may have freed
+ * the range meanwhile.
+ * <p>
+ * Availability calendars are cached under the bookings version of the item, a counter in its row that every
+ * booking write raises in its own transaction. The version is read before the calendar, so a write committed by
+ * any instance makes the next request miss, and a calendar is never cached under a version newer than its data.
+ */
+@Component
+public class AvailabilityEngine {
+    static final int STRIPES = 256;
+    private static final long LOCK_TIMEOUT_SECONDS = 5;
+
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, IntervalTree> trees;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public AvailabilityEngine(BookingRepository bookingRepository,
+                              @Value("${shareit.availability.spec}") String spec) {
+        this.bookingRepository = bookingRepository;
+        this.trees = Caffeine.from(spec).build();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Occupies {@code [start, end)} of the item by the already inserted booking. A booking that already occupies
+     * its range, e.g. a waiting one being approved, is not checked again. A tree that is missing or reports an
+     * overlap is reloaded and cached again.
+     *
+     * @throws BadRequestException if another waiting or approved booking of the item overlaps the range
+     */
+    public void reserve(Long itemId, Long bookingId, LocalDateTime start, LocalDateTime end) {
+        ReentrantLock lock = lock(itemId);
+        try {
+            IntervalTree tree = trees.getIfPresent(itemId);
+            Long overlap = tree == null || tree.contains(bookingId) ? null : tree.findOverlap(start, end);
+            if (tree == null || overlap != null) {
+                tree = load(itemId, bookingId);
+                trees.put(itemId, tree);
+                overlap = tree.findOverlap(start, end);
+            }
+            if (overlap != null) {
+                throw new BadRequestException(
+                        String.format("item %s is already booked by booking %s for these dates", itemId, overlap));
+            }
+        } catch (RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+        onCompletion(List.of(lock), () -> apply(itemId, tree -> tree.add(bookingId, start, end)));
+    }
+
+    /**
+     * Frees the range of a booking that stopped blocking the item, once the transaction commits.
+     */
+    public void release(Long itemId, Long bookingId) {
+        ReentrantLock lock = lock(itemId);
+        onCompletion(List.of(lock), () -> apply(itemId, tree -> tree.remove(bookingId)));
+    }
+
+    /**
+     * Applies a batch of decisions whose statuses were already written in the current transaction: every item of
+     * the batch is locked, then each approved booking is checked against the blocking bookings of its item outside
+     * the batch and against the bookings approved before it in the same batch.
+     * <p>
+     * A tree that is not cached is loaded without being cached, because the rows of the batch are not committed
+     * yet; the stripe locks keep other writers from caching it until the transaction completes. A cached tree that
+     * reports an overlap is checked again against a loaded one and dropped once the transaction commits.
+     *
+     * @throws BadRequestException if an approved booking would overlap another one; nothing is changed then
+     */
+    public void review(Collection<BookingDto> approved, Collection<BookingDto> rejected) {
+        List<ReentrantLock> held = lockAll(Stream.concat(approved.stream(), rejected.stream())
+                .map(b -> b.getItem().getId()));
+        try {
+            Set<Long> batch = Stream.concat(approved.stream(), rejected.stream())
+                    .map(BookingDto::getId)
+                    .collect(Collectors.toSet());
+            Map<Long, IntervalTree> blocking = new HashMap<>();
+            Map<Long, IntervalTree> accepted = new HashMap<>();
+            for (BookingDto booking : sorted(approved)) {
+                Long itemId = booking.getItem().getId();
+                IntervalTree tree = blocking.computeIfAbsent(itemId, this::cachedOrLoad);
+                IntervalTree before = accepted.computeIfAbsent(itemId, id -> new IntervalTree());
+                Long overlap = tree.findOverlap(booking.getStart(), booking.getEnd(), batch);
+                if (overlap != null && tree == trees.getIfPresent(itemId)) {
+                    tree = load(itemId, null);
+                    blocking.put(itemId, tree);
+                    evict(List.of(itemId));
+                    overlap = tree.findOverlap(booking.getStart(), booking.getEnd(), batch);
+                }
+                if (overlap == null) {
+                    overlap = before.findOverlap(booking.getStart(), booking.getEnd());
+                }
+                if (overlap != null) {
+                    throw new BadRequestException(String.format("item %s is already booked by booking %s "
+                            + "for the dates of booking %s", itemId, overlap, booking.getId()));
+                }
+                before.add(booking.getId(), booking.getStart(), booking.getEnd());
+            }
+        } catch (RuntimeException e) {
+            held.forEach(ReentrantLock::unlock);
+            throw e;
+        }
+        onCompletion(held, () -> {
+            rejected.forEach(b -> apply(b.getItem().getId(), tree -> tree.remove(b.getId())));
+            approved.forEach(b -> apply(b.getItem().getId(), tree -> tree.add(b.getId(), b.getStart(), b.getEnd())));
+        });
+    }
+
+    /**
+     * Drops the trees of the items once the transaction commits, so they are reloaded from the database under the
+     * item lock. Unlike {@link #release} it takes no locks, which suits bulk changes of many items.
+     */
+    public void evict(Collection<Long> itemIds) {
+        afterCommit(() -> trees.invalidateAll(itemIds));
+    }
+
+    /**
+     * Drops every tree, e.g. after bookings were removed by a cascading delete.
+     */
+    public void evictAll() {
+        afterCommit(trees::invalidateAll);
+    }
+
+    public long bookingsVersion(Long itemId) {
+        return bookingRepository.findBookingsVersion(itemId);
+    }
+
+    /**
+     * Merged busy slots of the item within {@code [from, to)} and the free gaps between them, read with a single
+     * range query over the bookings of the item. The {@code version} only keys the cache; it has to be read by
+     * {@link #bookingsVersion} before the calendar, in the same transaction.
+     */
+    @Cacheable(cacheNames = CacheConfig.AVAILABILITY, key = "{#itemId, #from, #to, #version}")
+    public AvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to, long version) {
+        List<TimeSlotDto> busy = new ArrayList<>();
+        for (BookingInterval interval : bookingRepository.findBlockingIntervalsBetween(itemId, from, to)) {
+            LocalDateTime start = interval.getStart().isBefore(from) ? from : interval.getStart();
+            LocalDateTime end = interval.getEnd().isAfter(to) ? to : interval.getEnd();
+            TimeSlotDto last = busy.isEmpty() ? null : busy.get(busy.size() - 1);
+            if (last != null && !start.isAfter(last.getEnd())) {
+                if (end.isAfter(last.getEnd())) {
+                    last.setEnd(end);
+                }
+            } else {
+                busy.add(new TimeSlotDto(start, end));
+            }
+        }
+        List<TimeSlotDto> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (TimeSlotDto slot : busy) {
+            if (freeFrom.isBefore(slot.getStart())) {
+                free.add(new TimeSlotDto(freeFrom, slot.getStart()));
+            }
+            freeFrom = slot.getEnd();
+        }
+        if (freeFrom.isBefore(to)) {
+            free.add(new TimeSlotDto(freeFrom, to));
+        }
+        return new AvailabilityDto(itemId, from, to, busy, free);
+    }
+
+    private IntervalTree cachedOrLoad(Long itemId) {
+        IntervalTree tree = trees.getIfPresent(itemId);
+        return tree != null ? tree : load(itemId, null);
+    }
+
+    private IntervalTree load(Long itemId, Long excludedBookingId) {
+        IntervalTree tree = new IntervalTree();
+        for (BookingInterval interval : bookingRepository.findBlockingIntervals(itemId)) {
+            if (!interval.getId().equals(excludedBookingId)) {
+                tree.add(interval.getId(), interval.getStart(), interval.getEnd());
+            }
+        }
+        return tree;
+    }
+
+    private static List<BookingDto> sorted(Collection<BookingDto> bookings) {
+        return bookings.stream()
+                .sorted(Comparator.comparing((BookingDto b) -> b.getItem().getId()).thenComparing(BookingDto::getStart))
+                .collect(Collectors.toList());
+    }
+
+    private ReentrantLock lock(Long itemId) {
+        return lock(stripe(itemId), itemId);
+    }
+
+    /**
+     * Locks the distinct stripes of the items in ascending order, releasing those already held if one times out.
+     */
+    private List<ReentrantLock> lockAll(Stream<Long> itemIds) {
+        Map<Integer, Long> stripes = itemIds.collect(Collectors.toMap(AvailabilityEngine::stripe,
+                Function.identity(), (a, b) -> a, TreeMap::new));
+        List<ReentrantLock> held = new ArrayList<>(stripes.size());
+        try {
+            stripes.forEach((stripe, itemId) -> held.add(lock(stripe, itemId)));
+        } catch (RuntimeException e) {
+            held.forEach(ReentrantLock::unlock);
+            throw e;
+        }
+        return held;
+    }
+
+    private ReentrantLock lock(int stripe, Long itemId) {
+        ReentrantLock lock = locks[stripe];
+        try {
+            if (!lock.tryLock(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new BadRequestException(String.format("item %s is being booked, try again later", itemId));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BadRequestException(String.format("item %s is being booked, try again later", itemId));
+        }
+        return lock;
+    }
+
+    private static int stripe(Long itemId) {
+        return Math.floorMod(Long.hashCode(itemId), STRIPES);
+    }
+
+    /**
+     * Runs the changes of cached trees after the commit and releases the locks when the transaction completes.
+     */
+    private void onCompletion(List<ReentrantLock> held, Runnable changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                changes.run();
+            } finally {
+                held.forEach(ReentrantLock::unlock);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        changes.run();
+                    }
+                } finally {
+                    held.forEach(ReentrantLock::unlock);
+                }
+            }
+        });
+    }
+
+    private void apply(Long itemId, Consumer<IntervalTree> change) {
+        IntervalTree tree = trees.getIfPresent(itemId);
+        if (tree != null) {
+            change.accept(tree);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,192 @@
+package ru.practicum.shareit.booking.availability;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Half-open booking intervals {@code [start, end)} of one item in an AVL tree ordered by start and id.
+ * Every node keeps the latest end of its subtree, so an overlapping interval is found in O(log n).
+ */
+class IntervalTree {
+    private static final Comparator<Node> ORDER = Comparator.<Node, LocalDateTime>comparing(n -> n.start)
+            .thenComparingLong(n -> n.id);
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private Node root;
+
+    void add(long id, LocalDateTime start, LocalDateTime end) {
+        remove(id);
+        Node node = new Node(id, start, end);
+        nodes.put(id, node);
+        root = insert(root, node);
+    }
+
+    void remove(long id) {
+        Node node = nodes.remove(id);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    boolean contains(long id) {
+        return nodes.containsKey(id);
+    }
+
+    /**
+     * Id of any stored interval overlapping {@code [start, end)}, or {@code null} if the range is free.
+     */
+    Long findOverlap(LocalDateTime start, LocalDateTime end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start.isBefore(end) && start.isBefore(node.end)) {
+                return node.id;
+            }
+            node = node.left != null && start.isBefore(node.left.maxEnd) ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Id of any stored interval overlapping {@code [start, end)} other than the {@code ignored} ones, or
+     * {@code null} if the range is free of them.
+     */
+    Long findOverlap(LocalDateTime start, LocalDateTime end, Set<Long> ignored) {
+        return ignored.isEmpty() ? findOverlap(start, end) : findOverlap(root, start, end, ignored);
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    private static Long findOverlap(Node node, LocalDateTime start, LocalDateTime end, Set<Long> ignored) {
+        if (node == null || !start.isBefore(node.maxEnd)) {
+            return null;
+        }
+        Long overlap = findOverlap(node.left, start, end, ignored);
+        if (overlap != null || !node.start.isBefore(end)) {
+            return overlap;
+        }
+        if (start.isBefore(node.end) && !ignored.contains(node.id)) {
+            return node.id;
+        }
+        return findOverlap(node.right, start, end, ignored);
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (ORDER.compare(added, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, Node removed) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = ORDER.compare(removed, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, removed);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, removed);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(node.maxEnd)) {
+            node.maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(node.maxEnd)) {
+            node.maxEnd = node.right.maxEnd;
+        }
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node {
+        private final long id;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private LocalDateTime maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long id, LocalDateTime start, LocalDateTime end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
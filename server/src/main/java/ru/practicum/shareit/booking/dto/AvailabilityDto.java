@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Busy and free slots of an item within {@code [from, to)}. Busy slots merge the waiting and approved bookings,
+ * free slots are the gaps between them.
+ */
+@AllArgsConstructor
+@Getter
+@Setter
+public class AvailabilityDto {
+    private Long itemId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<TimeSlotDto> busy;
+    private List<TimeSlotDto> free;
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one entry of a batch approval: the booking after the decision, or the reason it was skipped.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class BookingApprovalResultDto {
+    private Long bookingId;
+    private BookingDto booking;
+    private String error;
+
+    public static BookingApprovalResultDto applied(BookingDto booking) {
+        return new BookingApprovalResultDto(booking.getId(), booking, null);
+    }
+
+    public static BookingApprovalResultDto skipped(Long bookingId, String error) {
+        return new BookingApprovalResultDto(bookingId, null, error);
+    }
+}
@@ -23,4 +23,15 @@ public class BookingDto {
     private ItemInfoDto item;
     private UserInfoDto booker;
     private BookingStatus status;
+
+    public BookingDto() {
+    }
+
+    /**
+     * Row constructor of the JPQL projections in BookingRepository.
+     */
+    public BookingDto(Long id, LocalDateTime start, LocalDateTime end, Long itemId, String itemName, Long ownerId,
+                      Long bookerId, BookingStatus status) {
+        this(id, start, end, itemId, new ItemInfoDto(itemId, itemName, ownerId), new UserInfoDto(bookerId), status);
+    }
 }
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.booking.expiry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically moves waiting bookings whose start has passed to {@link BookingStatus#EXPIRED}, one bounded batch per
+ * transaction. Batches claim their rows with a skip-locked select, so the sweepers of several nodes never wait for
+ * or expire the same bookings.
+ */
+@Slf4j
+@Component
+@EnableScheduling
+@ConditionalOnProperty(value = "shareit.booking.expiry.enabled", havingValue = "true")
+public class BookingExpirySweeper {
+    static final String EXPIRED = "shareit.bookings.expired";
+    static final String BATCH = "shareit.bookings.expiry.batch";
+
+    private final BookingService bookingService;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Counter expired;
+    private final Timer batch;
+
+    public BookingExpirySweeper(BookingService bookingService,
+                                MeterRegistry meterRegistry,
+                                @Value("${shareit.booking.expiry.batch-size}") int batchSize,
+                                @Value("${shareit.booking.expiry.max-batches}") int maxBatches) {
+        this.bookingService = bookingService;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.expired = Counter.builder(EXPIRED)
+                .description("Waiting bookings moved to EXPIRED")
+                .register(meterRegistry);
+        this.batch = Timer.builder(BATCH)
+                .description("Time to claim and expire one batch of waiting bookings")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Expires batches until one comes back short or {@code max-batches} is reached, leaving the rest to the next run.
+     *
+     * @return the number of expired bookings
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval}",
+            initialDelayString = "${shareit.booking.expiry.interval}")
+    public int sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            Integer swept = batch.record(() -> bookingService.expireWaitingBookings(now, batchSize));
+            int count = swept == null ? 0 : swept;
+            expired.increment(count);
+            total += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("expired {} waiting bookings that started before {}", total, now);
+        }
+        return total;
+    }
+}
@@ -1,43 +1,62 @@
 package ru.practicum.shareit.booking.impl;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.*;
+import ru.practicum.shareit.booking.availability.AvailabilityEngine;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
+import ru.practicum.shareit.booking.dto.BookingClaim;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exeption.BadRequestException;
 import ru.practicum.shareit.exeption.NotFoundException;
 import ru.practicum.shareit.exeption.UserVerificationException;
 import ru.practicum.shareit.item.ItemService;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final String EXCLUSION_VIOLATION = "23P01";
 
     private final BookingRepository bookingRepository;
     private final UserService userService;
     private final ItemService itemService;
+    private final AvailabilityEngine availabilityEngine;
 
     @Transactional
     @Override
     public BookingDto createNewBooking(BookingDto bookingDto, Long bookerId) {
         Long itemId = bookingDto.getItemId();
-        Item item = itemService.checkIfItemExist(itemId);
+        ItemSnapshot item = itemService.getItemSnapshot(itemId);
         User booker = userService.checkIfUserExist(bookerId);
 
-        if (Objects.equals(item.getOwner().getId(), booker.getId())) {
+        if (Objects.equals(item.getOwnerId(), booker.getId())) {
             throw new UserVerificationException("booking could not be created by item owner");
         }
         if (!item.getAvailable()) {
@@ -45,124 +64,271 @@ public class BookingServiceImpl implements BookingService {
         }
 
         Booking booking = BookingMapper.toBooking(bookingDto);
-        booking.setItem(item);
+        booking.setItem(itemService.getItemReference(itemId));
         booking.setBooker(booker);
-        return BookingMapper.toBookingDto(bookingRepository.save(booking));
+        bookingRepository.raiseBookingsVersions(List.of(itemId));
+        Booking savedBooking = excludingOverlaps(() -> bookingRepository.save(booking),
+                () -> String.format("item with id= %s is already booked for these dates", itemId));
+        availabilityEngine.reserve(itemId, savedBooking.getId(), savedBooking.getStart(), savedBooking.getEnd());
+        return BookingMapper.toBookingDto(savedBooking, item);
     }
 
     @Transactional
     @Override
     public BookingDto approveBooking(Long ownerId, Long bookingId, Boolean approved) {
-        Booking booking = checkIfBookingExist(bookingId);
-        User owner = userService.checkIfUserExist(ownerId);
-        Item item = booking.getItem();
-        itemService.checkIfUserIsOwner(item, owner.getId());
-        if (approved && !booking.getStatus().equals(BookingStatus.APPROVED)) {
-            booking.setStatus(BookingStatus.APPROVED);
-        } else if (!approved && !booking.getStatus().equals(BookingStatus.REJECTED)) {
-            booking.setStatus(BookingStatus.REJECTED);
-        } else {
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        if (updateStatus(() -> bookingRepository.updateStatus(bookingId, status, ownerId), bookingId) == 0) {
+            Booking booking = checkIfBookingExist(bookingId);
+            User owner = userService.checkIfUserExist(ownerId);
+            itemService.checkIfUserIsOwner(booking.getItem(), owner.getId());
             throw new BadRequestException("Booking status was already changed");
         }
-        return BookingMapper.toBookingDto(bookingRepository.save(booking));
+        BookingDto booking = bookingRepository.findDtoById(bookingId).orElseThrow();
+        Long itemId = booking.getItem().getId();
+        bookingRepository.raiseBookingsVersions(List.of(itemId));
+        if (approved) {
+            availabilityEngine.reserve(itemId, bookingId, booking.getStart(), booking.getEnd());
+        } else {
+            availabilityEngine.release(itemId, bookingId);
+        }
+        return booking;
     }
 
+    /**
+     * Applies all decisions with one select and at most two set-based updates. Bookings that are missing, belong
+     * to an item of another owner or have expired are skipped with an error in their result; bookings that
+     * already have the requested status are returned unchanged. Like the single approval, the rows are updated
+     * before the items are locked in the availability engine, so both paths take their locks in the same order.
+     */
     @Transactional
     @Override
+    public List<BookingApprovalResultDto> approveBookings(Long ownerId, List<BookingApprovalDto> approvals) {
+        Map<Long, Boolean> decisions = new LinkedHashMap<>();
+        for (BookingApprovalDto approval : approvals) {
+            if (decisions.put(approval.getBookingId(), approval.getApproved()) != null) {
+                throw new BadRequestException(
+                        String.format("booking with id= %s is listed more than once", approval.getBookingId()));
+            }
+        }
+        if (decisions.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, BookingDto> bookings = bookingRepository
+                .findAllOwnersBookingsByIdIn(decisions.keySet(), ownerId).stream()
+                .collect(Collectors.toMap(BookingDto::getId, Function.identity()));
+
+        Map<Long, String> skipped = new HashMap<>();
+        List<BookingDto> toApprove = new ArrayList<>();
+        List<BookingDto> toReject = new ArrayList<>();
+        decisions.forEach((id, approved) -> {
+            BookingDto booking = bookings.get(id);
+            if (booking == null) {
+                skipped.put(id, String.format("booking with id= %s not found among bookings of items "
+                        + "of user with id= %s", id, ownerId));
+            } else if (booking.getStatus() == BookingStatus.EXPIRED) {
+                skipped.put(id, String.format("booking with id= %s has expired", id));
+            } else if (approved && booking.getStatus() != BookingStatus.APPROVED) {
+                toApprove.add(booking);
+            } else if (!approved && booking.getStatus() != BookingStatus.REJECTED) {
+                toReject.add(booking);
+            }
+        });
+        applyStatus(toReject, BookingStatus.REJECTED, ownerId);
+        applyStatus(toApprove, BookingStatus.APPROVED, ownerId);
+        if (!toApprove.isEmpty() || !toReject.isEmpty()) {
+            bookingRepository.raiseBookingsVersions(Stream.concat(toApprove.stream(), toReject.stream())
+                    .map(b -> b.getItem().getId())
+                    .collect(Collectors.toCollection(TreeSet::new)));
+            availabilityEngine.review(toApprove, toReject);
+        }
+        return decisions.keySet().stream()
+                .map(id -> skipped.containsKey(id)
+                        ? BookingApprovalResultDto.skipped(id, skipped.get(id))
+                        : BookingApprovalResultDto.applied(bookings.get(id)))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
     public BookingDto getBooking(Long userId, Long bookingId) {
         User user = userService.checkIfUserExist(userId);
-        Booking booking = checkIfBookingExist(bookingId);
-        checkAccess(user, booking);
-        return BookingMapper.toBookingDto(booking);
+        Optional<BookingDto> booking = bookingRepository.findDtoById(bookingId);
+        if (booking.isEmpty()) {
+            throw new NotFoundException(
+                    String.format("%s with id= %s not found", Booking.class.getSimpleName(), bookingId));
+        }
+        checkAccess(user, booking.get());
+        return booking.get();
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public List<BookingDto> getUserBookings(Long userId, String state, Long from, Integer size) {
+        return getUserBookings(userId, state, Long.MAX_VALUE, OffsetPageRequest.of(from, size));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingDto> getUserBookingsAfter(Long userId, String state, String after, Integer size) {
+        return getUserBookings(userId, state, PageCursor.decode(after).getId(), OffsetPageRequest.of(0L, size));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingDto> getOwnerBookings(Long ownerId, String state, Long from, Integer size) {
+        return getOwnerBookings(ownerId, state, Long.MAX_VALUE, OffsetPageRequest.of(from, size));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingDto> getOwnerBookingsAfter(Long ownerId, String state, String after, Integer size) {
+        return getOwnerBookings(ownerId, state, PageCursor.decode(after).getId(), OffsetPageRequest.of(0L, size));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Booking checkIfBookingExist(Long id) {
+        Optional<Booking> booking = bookingRepository.findById(id);
+        if (booking.isEmpty()) {
+            throw new NotFoundException(
+                    String.format("%s with id= %s not found", Booking.class.getSimpleName(), id));
+        }
+        return booking.get();
+    }
+
+    /**
+     * Moves up to {@code limit} waiting bookings that should have started before {@code now} to
+     * {@link BookingStatus#EXPIRED}: one select claims the rows, skipping those locked by a concurrent sweep,
+     * one update expires them and one raises the bookings versions of their items.
+     *
+     * @return the number of expired bookings
+     */
+    @Transactional
+    @Override
+    public int expireWaitingBookings(LocalDateTime now, int limit) {
+        List<BookingClaim> claimed = bookingRepository.claimStaleWaiting(now, OffsetPageRequest.of(0L, limit));
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        int expired = bookingRepository.expireAllByIdIn(
+                claimed.stream().map(BookingClaim::getId).collect(Collectors.toList()));
+        Set<Long> itemIds = claimed.stream()
+                .map(BookingClaim::getItemId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        bookingRepository.raiseBookingsVersions(itemIds);
+        availabilityEngine.evict(itemIds);
+        return expired;
+    }
+
+    private List<BookingDto> getUserBookings(Long userId, String state, Long afterId, Pageable pageable) {
         User user = userService.checkIfUserExist(userId);
-        List<Booking> bookings = new ArrayList<>();
+        List<BookingDto> bookings = new ArrayList<>();
         LocalDateTime now = LocalDateTime.now();
         BookingState bookingState = getBookingState(state);
-        int startPage = Math.toIntExact(from / size);
-        PageRequest pageRequest = PageRequest.of(startPage, size);
         switch (bookingState) {
             case ALL:
-                bookings = bookingRepository.findAllByBookerIdOrderByIdDesc(user.getId(), pageRequest);
+                bookings = bookingRepository
+                        .findAllByBookerIdAndIdLessThanOrderByIdDesc(user.getId(), afterId, pageable);
                 break;
             case PAST:
-                bookings = bookingRepository.findAllPastBookings(user.getId(), now);
+                bookings = bookingRepository.findAllPastBookings(user.getId(), now, afterId, pageable);
                 break;
             case FUTURE:
-                bookings = bookingRepository.findAllFutureBookings(user.getId(), now);
+                bookings = bookingRepository.findAllFutureBookings(user.getId(), now, afterId, pageable);
                 break;
             case CURRENT:
-                bookings = bookingRepository.findAllCurrentBookings(user.getId(), now);
+                bookings = bookingRepository.findAllCurrentBookings(user.getId(), now, afterId, pageable);
                 break;
             case WAITING:
-                bookings = bookingRepository.findAllWaiting(user.getId());
+                bookings = bookingRepository.findAllWaiting(user.getId(), afterId, pageable);
                 break;
             case REJECTED:
-                bookings = bookingRepository.findAllRejected(user.getId());
+                bookings = bookingRepository.findAllRejected(user.getId(), afterId, pageable);
                 break;
         }
-        return bookings.stream()
-                .map(BookingMapper::toBookingDto)
-                .collect(Collectors.toList());
+        return bookings;
     }
 
-    @Transactional
-    @Override
-    public List<BookingDto> getOwnerBookings(Long ownerId, String state, Long from, Integer size) {
+    private List<BookingDto> getOwnerBookings(Long ownerId, String state, Long afterId, Pageable pageable) {
         User owner = userService.checkIfUserExist(ownerId);
-        List<Booking> bookings = new ArrayList<>();
+        List<BookingDto> bookings = new ArrayList<>();
         LocalDateTime now = LocalDateTime.now();
         BookingState bookingState = getBookingState(state);
-        int startPage = Math.toIntExact(from / size);
-        PageRequest pageRequest = PageRequest.of(startPage, size);
         switch (bookingState) {
             case ALL:
-                bookings = bookingRepository.findAllOwnersBookings(owner.getId(), pageRequest);
+                bookings = bookingRepository.findAllOwnersBookings(owner.getId(), afterId, pageable);
                 break;
             case PAST:
-                bookings = bookingRepository.findAllOwnersPastBookings(owner.getId(), now);
+                bookings = bookingRepository.findAllOwnersPastBookings(owner.getId(), now, afterId, pageable);
                 break;
             case FUTURE:
-                bookings = bookingRepository.findAllOwnersFutureBookings(owner.getId(), now);
+                bookings = bookingRepository.findAllOwnersFutureBookings(owner.getId(), now, afterId, pageable);
                 break;
             case CURRENT:
-                bookings = bookingRepository.findAllOwnersCurrentBookings(owner.getId(), now);
+                bookings = bookingRepository.findAllOwnersCurrentBookings(owner.getId(), now, afterId, pageable);
                 break;
             case WAITING:
-                bookings = bookingRepository.findAllOwnersWaiting(owner.getId());
+                bookings = bookingRepository.findAllOwnersWaiting(owner.getId(), afterId, pageable);
                 break;
             case REJECTED:
-                bookings = bookingRepository.findAllOwnersRejected(owner.getId());
+                bookings = bookingRepository.findAllOwnersRejected(owner.getId(), afterId, pageable);
                 break;
         }
-        return bookings.stream()
-                .map(BookingMapper::toBookingDto)
-                .collect(Collectors.toList());
-    }
-
-    @Transactional
-    @Override
-    public Booking checkIfBookingExist(Long id) {
-        Optional<Booking> booking = bookingRepository.findById(id);
-        if (booking.isEmpty()) {
-            throw new NotFoundException(
-                    String.format("%s with id= %s not found", Booking.class.getSimpleName(), id));
-        }
-        return booking.get();
+        return bookings;
     }
 
-    private void checkAccess(User user, Booking booking) {
-        Long ownerId = booking.getItem().getOwner().getId();
+    private void checkAccess(User user, BookingDto booking) {
+        Long ownerId = booking.getItem().getOwnerId();
         Long bookerId = booking.getBooker().getId();
         if (!Objects.equals(ownerId, user.getId()) && !Objects.equals(bookerId, user.getId())) {
             throw new UserVerificationException("only booker or item owner could get booking info");
         }
     }
 
+    private void applyStatus(List<BookingDto> bookings, BookingStatus status, Long ownerId) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        List<Long> ids = bookings.stream().map(BookingDto::getId).collect(Collectors.toList());
+        if (updateStatus(() -> bookingRepository.updateStatusIn(ids, status, ownerId), ids) != ids.size()) {
+            throw new BadRequestException("Booking status was changed concurrently, try again");
+        }
+        bookings.forEach(b -> b.setStatus(status));
+    }
+
+    /**
+     * Runs a conditional status update, so that racing approvals are serialized by the row locks and a violation
+     * of the PostgreSQL exclusion constraint on blocking bookings surfaces here instead of at commit.
+     */
+    private int updateStatus(IntSupplier update, Object bookingIds) {
+        return excludingOverlaps(update::getAsInt, () -> String.format(
+                "item of booking with id= %s is already booked for these dates", bookingIds));
+    }
+
+    /**
+     * Runs a booking write and turns a violation of the exclusion constraint, which catches the overlaps written
+     * by other instances past their availability engines, into a {@link BadRequestException}.
+     */
+    private <T> T excludingOverlaps(Supplier<T> write, Supplier<String> message) {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException e) {
+            if (isExclusionViolation(e)) {
+                throw new BadRequestException(message.get());
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isExclusionViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private BookingState getBookingState(String state) {
         return BookingState.valueOf(state);
     }
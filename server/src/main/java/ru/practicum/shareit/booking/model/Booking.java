@@ -16,7 +16,10 @@ import java.time.LocalDateTime;
 @Setter
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(name = Booking.WITH_ITEM, attributeNodes = @NamedAttributeNode("item"))
 public class Booking {
+    public static final String WITH_ITEM = "Booking.withItem";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -24,14 +27,16 @@ public class Booking {
     private LocalDateTime start;
     @Column(name = "end_time")
     private LocalDateTime end;
-    @ManyToOne(optional = false, cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "item_id")
     private Item item;
-    @ManyToOne(optional = false, cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "booker_id")
     private User booker;
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
+    @Version
+    private Long version;
 
     public Booking(LocalDateTime start, LocalDateTime end, BookingStatus status) {
         this.start = start;
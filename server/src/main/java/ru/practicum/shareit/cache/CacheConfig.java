@@ -0,0 +1,29 @@
+package ru.practicum.shareit.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bounded caches of entity snapshots and item availability. Evictions are deferred until the surrounding transaction commits,
+ * so a concurrent reader cannot put the old row back between the eviction and the commit.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String USERS = "users";
+    public static final String ITEMS = "items";
+    public static final String AVAILABILITY = "availability";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${shareit.cache.spec}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(USERS, ITEMS, AVAILABILITY);
+        cacheManager.setCacheSpecification(spec);
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.cache;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Strong ETags of the polled item, request and user views. A tag is a hash of the versions and stamps a view is
+ * built from, not of the view, so a conditional GET is answered with 304 before the view is loaded.
+ * <p>
+ * A tag is read before its view, so a write committed in between at worst sends a new view under the old tag,
+ * which the next request replaces; an old view is never sent under a new tag.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String of(Object... parts) {
+        return DigestUtils.md5DigestAsHex(Arrays.toString(parts).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,12 +1,18 @@
 package ru.practicum.shareit.comment;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.comment.model.Comment;
 
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    @EntityGraph(Comment.WITH_AUTHOR)
+    @Query(" select c from Comment c where c.item.id = ?1")
     List<Comment> findAllByItemIdIs(Long id);
 
+    @EntityGraph(Comment.WITH_AUTHOR)
+    @Query(" select c from Comment c where c.item.id in ?1")
     List<Comment> findAllByItemIdIn(List<Long> ids);
 }
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Exposes the {@code X-Sharer-User-Id} of the request to {@link ReplicaRoutingDataSource}. Requests to
+ * {@code /users/{id}} carry no header, so the user they read or change is taken from the path instead.
+ */
+public class CurrentUserFilter extends OncePerRequestFilter {
+    public static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final Pattern USER_PATH = Pattern.compile("/users/([^/]+)/?");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long userId = parseUserId(request.getHeader(USER_HEADER));
+        if (userId == null) {
+            Matcher path = USER_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+            userId = path.matches() ? parseUserId(path.group(1)) : null;
+        }
+        ReplicaRoutingDataSource.setCurrentUser(userId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.clearCurrentUser();
+        }
+    }
+
+    private static Long parseUserId(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
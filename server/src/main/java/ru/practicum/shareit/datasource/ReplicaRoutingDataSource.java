@@ -0,0 +1,148 @@
+package ru.practicum.shareit.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary. A user whose write
+ * committed less than {@code stickiness} ago keeps reading from the primary, so the replication lag
+ * never hides the user's own changes. Reads that have to see the latest state regardless of the user run through
+ * {@link #readFromPrimary}, and shared caches skip results read in a transaction that {@link #isReadingReplica}.
+ * <p>
+ * The lookup key is resolved when a connection is acquired, so the data source has to be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction manager
+ * opens the connection before the read-only flag of the transaction is published.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private static final ThreadLocal<Long> CURRENT_USER = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY_READ = new ThreadLocal<>();
+    private static final Object REPLICA_READ = new Object();
+    private static final Object NEW_WRITERS = new Object();
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration stickiness) {
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickiness)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public static void setCurrentUser(Long userId) {
+        CURRENT_USER.set(userId);
+    }
+
+    public static void clearCurrentUser() {
+        CURRENT_USER.remove();
+    }
+
+    /**
+     * Makes a user that the current transaction writes but the request does not name, e.g. a user being created,
+     * read from the primary once the transaction commits.
+     */
+    @SuppressWarnings("unchecked")
+    public static void rememberWriter(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Set<Long> writers = (Set<Long>) TransactionSynchronizationManager.getResource(NEW_WRITERS);
+        if (writers == null) {
+            writers = new HashSet<>();
+            bindToTransaction(NEW_WRITERS, writers);
+        }
+        writers.add(userId);
+    }
+
+    /**
+     * Whether the current transaction reads from the replica, whose rows may lag behind the primary.
+     */
+    public static boolean isReadingReplica() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_READ);
+    }
+
+    /**
+     * Runs a read whose connection goes to the primary without marking the user as a writer. The connection is
+     * acquired by the first statement, so the read has to start before any statement of its transaction.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        Boolean previous = PRIMARY_READ.get();
+        PRIMARY_READ.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_READ.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long userId = CURRENT_USER.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriters(userId);
+            return PRIMARY;
+        }
+        if (PRIMARY_READ.get() != null) {
+            return PRIMARY;
+        }
+        if (userId != null && recentWriters.getIfPresent(userId) != null) {
+            return PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !isReadingReplica()) {
+            bindToTransaction(REPLICA_READ, Boolean.TRUE);
+        }
+        return REPLICA;
+    }
+
+    /**
+     * Makes the user of the request and every user passed to {@link #rememberWriter(Long)} sticky after the commit.
+     */
+    @SuppressWarnings("unchecked")
+    private void rememberWriters(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (userId != null) {
+                    recentWriters.put(userId, Boolean.TRUE);
+                }
+                Set<Long> writers = (Set<Long>) TransactionSynchronizationManager.getResource(NEW_WRITERS);
+                if (writers != null) {
+                    writers.forEach(writer -> recentWriters.put(writer, Boolean.TRUE));
+                }
+            }
+        });
+    }
+
+    /**
+     * Binds a resource to the current transaction and unbinds it when the transaction completes, after every
+     * {@code afterCommit} callback has run.
+     */
+    private static void bindToTransaction(Object key, Object value) {
+        TransactionSynchronizationManager.bindResource(key, value);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(key);
+            }
+        });
+    }
+}
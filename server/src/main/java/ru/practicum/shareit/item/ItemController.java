@@ -2,9 +2,14 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.AvailabilityDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.PageCursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -40,29 +45,52 @@ public class ItemController {
 
     @GetMapping("/{id}")
     public ItemDto getItem(@PathVariable("id") Long id,
-                           @RequestHeader("X-Sharer-User-Id") Long userId) {
+                           @RequestHeader("X-Sharer-User-Id") Long userId,
+                           WebRequest request) {
         log.info("get item with id = {} from user with id = {}", id, userId);
+        if (request.checkNotModified(itemService.getItemTag(id, userId))) {
+            return null;
+        }
         return itemService.getItem(id, userId);
     }
 
+    @GetMapping("/{id}/availability")
+    public AvailabilityDto getAvailability(
+            @PathVariable("id") Long id,
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        log.info("get availability of item with id = {} from {} to {}", id, from, to);
+        return itemService.getAvailability(id, userId, from, to);
+    }
+
     @GetMapping
-    public List<ItemDto> getItemsByOwner(
+    public ResponseEntity<List<ItemDto>> getItemsByOwner(
             @RequestHeader("X-Sharer-User-Id") Long ownerId,
             @RequestParam(name = "from") Long from,
-            @RequestParam(name = "size") Integer size
+            @RequestParam(name = "size") Integer size,
+            @RequestParam(name = "after", required = false) String after
     ) {
         log.info("get items with owner id = {}", ownerId);
-        return itemService.getItemsByOwner(ownerId, from, size);
+        List<ItemDto> items = after == null
+                ? itemService.getItemsByOwner(ownerId, from, size)
+                : itemService.getItemsByOwnerAfter(ownerId, after, size);
+        return PageCursor.toResponse(items, size, i -> PageCursor.encode(i.getId()));
     }
 
     @GetMapping("/search")
-    public List<ItemDto> search(
+    public ResponseEntity<List<ItemDto>> search(
             @RequestParam(name = "text") String text,
             @RequestParam(name = "from") Long from,
-            @RequestParam(name = "size") Integer size
+            @RequestParam(name = "size") Integer size,
+            @RequestParam(name = "after", required = false) String after
     ) {
         log.info("search items name or desc contains = {}", text);
-        return itemService.search(text, from, size);
+        List<ItemDto> items = after == null
+                ? itemService.search(text, from, size)
+                : itemService.searchAfter(text, after, size);
+        return PageCursor.toResponse(items, size, i -> PageCursor.encode(i.getId()));
     }
 
     @PostMapping("/{id}/comment")
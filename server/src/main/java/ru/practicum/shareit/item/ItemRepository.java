@@ -1,23 +1,78 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.cache.CacheConfig;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
+import ru.practicum.shareit.item.dto.ItemStamp;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.IndexedItem;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
-    List<Item> findAllByOwnerIdIsOrderById(Long ownerId, Pageable pageable);
+    String ITEM_DTO = " select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, " +
+            "i.available, i.owner.id, r.id) " +
+            "from Item i left join i.request r ";
 
-    @Query(" select i from Item i " +
+    @Query(ITEM_DTO +
+            "where i.id = ?1")
+    Optional<ItemDto> findDtoById(Long id);
+
+    @Query(value = "select i.owner_id as ownerId, i.version as version, i.bookings_version as bookingsVersion, " +
+            "(select count(*) from comments c where c.item_id = i.id) as comments, " +
+            "(select max(c.id) from comments c where c.item_id = i.id) as lastCommentId, " +
+            "(select sum(u.version) from comments c join users u on u.id = c.author_id " +
+            "where c.item_id = i.id) as commentAuthorsVersion, " +
+            "(select min(b.start_time) from bookings b where b.item_id = i.id and b.start_time > ?2) as nextStart, " +
+            "(select min(b.end_time) from bookings b where b.item_id = i.id and b.end_time > ?2) as nextEnd " +
+            "from items i " +
+            "where i.id = ?1", nativeQuery = true)
+    Optional<ItemStamp> findStampById(Long id, LocalDateTime now);
+
+    @Query(ITEM_DTO +
+            "where i.owner.id = ?1 " +
+            "and i.id > ?2 " +
+            "order by i.id")
+    List<ItemDto> findAllByOwnerIdIsAndIdGreaterThanOrderById(Long ownerId, Long afterId, Pageable pageable);
+
+    /**
+     * Substring search over available items. On PostgreSQL both predicates are served by the partial trigram
+     * indexes from schema-postgresql.sql, so the upper(...) like expressions must stay in sync with them.
+     */
+    @Query(ITEM_DTO +
             "where (upper(i.name) like upper(concat('%', ?1, '%')) " +
             " or upper(i.description) like upper(concat('%', ?1, '%')))" +
-            "and i.available = true")
-    List<Item> search(String text, Pageable pageable);
+            "and i.available = true " +
+            "and i.id > ?2 " +
+            "order by i.id")
+    List<ItemDto> search(String text, Long afterId, Pageable pageable);
+
+    @Query(" select new ru.practicum.shareit.item.search.IndexedItem(i.id, i.name, i.description, i.owner.id, r.id) " +
+            "from Item i left join i.request r " +
+            "where i.available = true " +
+            "and i.id > ?1 " +
+            "order by i.id")
+    List<IndexedItem> findIndexedItems(Long afterId, Pageable pageable);
+
+    @Cacheable(cacheNames = CacheConfig.ITEMS, unless = "#result == null "
+            + "|| T(ru.practicum.shareit.datasource.ReplicaRoutingDataSource).isReadingReplica()")
+    @Query(" select new ru.practicum.shareit.item.dto.ItemSnapshot(i.id, i.name, i.owner.id, i.available) " +
+            "from Item i " +
+            "where i.id = ?1")
+    Optional<ItemSnapshot> findSnapshotById(Long id);
 
-    List<Item> findAllByRequestIdIn(List<Long> requestId);
+    @Query(ITEM_DTO +
+            "where i.request.id in ?1")
+    List<ItemDto> findAllByRequestIdIn(List<Long> requestId);
 
-    List<Item> findAllByRequestId(Long requestId);
+    @Query(ITEM_DTO +
+            "where i.request.id = ?1")
+    List<ItemDto> findAllByRequestId(Long requestId);
 
 }
@@ -1,9 +1,12 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.booking.dto.AvailabilityDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -13,17 +16,29 @@ public interface ItemService {
 
     ItemDto getItem(Long id, Long userId);
 
+    String getItemTag(Long id, Long userId);
+
+    AvailabilityDto getAvailability(Long id, Long userId, LocalDateTime from, LocalDateTime to);
+
     List<ItemDto> getItemsByOwner(Long id, Long from, Integer size);
 
+    List<ItemDto> getItemsByOwnerAfter(Long id, String after, Integer size);
+
     List<ItemDto> search(String text, Long from, Integer size);
 
+    List<ItemDto> searchAfter(String text, String after, Integer size);
+
     Item checkIfItemExist(Long id);
 
+    ItemSnapshot getItemSnapshot(Long id);
+
+    Item getItemReference(Long id);
+
     void checkIfUserIsOwner(Item item, Long ownerId);
 
     CommentDto addComment(Long id, Long authorId, CommentDto commentDto);
 
-    List<Item> getItemsByRequestIdIn(List<Long> requestIds);
+    List<ItemDto> getItemsByRequestIdIn(List<Long> requestIds);
 
-    List<Item> getItemsByRequestId(Long requestId);
+    List<ItemDto> getItemsByRequestId(Long requestId);
 }
@@ -1,29 +1,40 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
-import ru.practicum.shareit.booking.dto.BookingInfoDto;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.availability.AvailabilityEngine;
+import ru.practicum.shareit.booking.dto.AvailabilityDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
+import ru.practicum.shareit.cache.CacheConfig;
+import ru.practicum.shareit.cache.EntityTags;
 import ru.practicum.shareit.comment.CommentMapper;
 import ru.practicum.shareit.comment.CommentRepository;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.datasource.ReplicaRoutingDataSource;
 import ru.practicum.shareit.exeption.BadRequestException;
 import ru.practicum.shareit.exeption.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
+import ru.practicum.shareit.item.dto.ItemStamp;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.retry.RetryOnConflict;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -37,6 +48,8 @@ public class ItemServiceImpl implements ItemService {
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchEngine itemSearchEngine;
+    private final AvailabilityEngine availabilityEngine;
 
     @Transactional
     @Override
@@ -47,18 +60,20 @@ public class ItemServiceImpl implements ItemService {
         item.setOwner(owner);
         Long requestId = itemDto.getRequestId();
         if (itemDto.getRequestId() == null) {
-            return ItemMapper.toItemDto(itemRepository.saveAndFlush(item));
+            return saveAndIndex(item);
         }
         Optional<ItemRequest> itemRequest = itemRequestRepository.findById(requestId);
         if (itemRequest.isEmpty()) {
             throw new NotFoundException(String.format("request with id = %s not found", requestId));
         }
         item.setRequest(itemRequest.get());
-        return ItemMapper.toItemDto(itemRepository.saveAndFlush(item));
+        return saveAndIndex(item);
     }
 
+    @RetryOnConflict
     @Transactional
     @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#itemDto.id")
     public ItemDto updateItem(ItemDto itemDto) {
         Item itemToUpdate = checkIfItemExist(itemDto.getId());
         checkIfUserIsOwner(itemToUpdate, itemDto.getOwner());
@@ -71,13 +86,18 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getAvailable() != null) {
             itemToUpdate.setAvailable(itemDto.getAvailable());
         }
-        return ItemMapper.toItemDto(itemRepository.saveAndFlush(itemToUpdate));
+        return saveAndIndex(itemToUpdate);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public ItemDto getItem(Long id, Long userId) {
-        ItemDto itemDto = ItemMapper.toItemDto(checkIfItemExist(id));
+        Optional<ItemDto> item = itemRepository.findDtoById(id);
+        if (item.isEmpty()) {
+            throw new NotFoundException(
+                    String.format("%s with id= %s not found", Item.class.getSimpleName(), id));
+        }
+        ItemDto itemDto = item.get();
         List<CommentDto> comments = commentRepository
                 .findAllByItemIdIs(id).stream()
                 .map(CommentMapper::toCommentDto)
@@ -86,53 +106,108 @@ public class ItemServiceImpl implements ItemService {
         if (!Objects.equals(itemDto.getOwner(), userId)) {
             return itemDto;
         }
-        return addBookings(itemDto);
+        return setLastAndNextBookings(itemDto, getLastAndNextBookings(List.of(id)).getOrDefault(id, List.of()));
     }
 
-    @Transactional
+    /**
+     * Tag of the view {@link #getItem} would return to the user. Only the owner sees the last and next bookings, so
+     * only the owner's tag covers the bookings and the time they next change.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public String getItemTag(Long id, Long userId) {
+        ItemStamp stamp = itemRepository.findStampById(id, LocalDateTime.now())
+                .orElseThrow(() -> new NotFoundException(
+                        String.format("%s with id= %s not found", Item.class.getSimpleName(), id)));
+        if (!Objects.equals(stamp.getOwnerId(), userId)) {
+            return EntityTags.of("item", id, stamp.getVersion(), stamp.getComments(), stamp.getLastCommentId(),
+                    stamp.getCommentAuthorsVersion());
+        }
+        return EntityTags.of("item", id, stamp.getVersion(), stamp.getComments(), stamp.getLastCommentId(),
+                stamp.getCommentAuthorsVersion(), stamp.getBookingsVersion(), stamp.getNextStart(),
+                stamp.getNextEnd());
+    }
+
+    /**
+     * Reads the calendar on the primary: it is cached under the current bookings version of the item, so a lagging
+     * replica would keep a stale calendar under a fresh version.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public AvailabilityDto getAvailability(Long id, Long userId, LocalDateTime from, LocalDateTime to) {
+        return ReplicaRoutingDataSource.readFromPrimary(() -> {
+            userService.checkIfUserExist(userId);
+            ItemSnapshot item = getItemSnapshot(id);
+            if (!from.isBefore(to)) {
+                throw new BadRequestException("from must be before to");
+            }
+            long version = availabilityEngine.bookingsVersion(item.getId());
+            return availabilityEngine.getAvailability(item.getId(), from, to, version);
+        });
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public List<ItemDto> getItemsByOwner(Long id, Long from, Integer size) {
-        int startPage = Math.toIntExact(from / size);
-        PageRequest pageRequest = PageRequest.of(startPage, size);
-        List<ItemDto> items = itemRepository
-                .findAllByOwnerIdIsOrderById(id, pageRequest).stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toList());
+        return getItemsByOwner(id, 0L, OffsetPageRequest.of(from, size));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemDto> getItemsByOwnerAfter(Long id, String after, Integer size) {
+        return getItemsByOwner(id, PageCursor.decode(after).getId(), OffsetPageRequest.of(0L, size));
+    }
+
+    private List<ItemDto> getItemsByOwner(Long id, Long afterId, Pageable pageable) {
+        List<ItemDto> items = itemRepository.findAllByOwnerIdIsAndIdGreaterThanOrderById(id, afterId, pageable);
         List<Long> itemIds = items.stream().map(ItemDto::getId).collect(Collectors.toList());
         List<Comment> comments = commentRepository.findAllByItemIdIn(itemIds);
-        List<Booking> bookings = bookingRepository.findAllByItemIdIn(itemIds);
+        Map<Long, List<ItemBookingView>> bookings = getLastAndNextBookings(itemIds);
         return items.stream()
                 .map(i -> findComments(i, comments))
-                .map(i -> setLastAndNextBookings(i, bookings))
+                .map(i -> setLastAndNextBookings(i, bookings.getOrDefault(i.getId(), List.of())))
                 .collect(Collectors.toList());
     }
 
-    private ItemDto setLastAndNextBookings(ItemDto itemDto, List<Booking> bookings) {
-        Optional<Booking> lastBooking = bookings.stream()
-                .filter(b -> b.getItem().getId().equals(itemDto.getId()))
-                .filter(b -> b.getEnd().isBefore(LocalDateTime.now())).max(Comparator.comparing(Booking::getEnd));
-        Optional<Booking> nextBooking = bookings.stream()
-                .filter(b -> b.getItem().getId().equals(itemDto.getId()))
-                .filter(b -> b.getStart().isAfter(LocalDateTime.now())).min(Comparator.comparing(Booking::getStart));
-        itemDto.setLastBooking(lastBooking.map(BookingMapper::toBookingInfoDto).orElse(null));
-        itemDto.setNextBooking(nextBooking.map(BookingMapper::toBookingInfoDto).orElse(null));
+    private Map<Long, List<ItemBookingView>> getLastAndNextBookings(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Map.of();
+        }
+        return bookingRepository.findLastAndNextBookings(itemIds, LocalDateTime.now()).stream()
+                .collect(Collectors.groupingBy(ItemBookingView::getItemId));
+    }
+
+    private ItemDto setLastAndNextBookings(ItemDto itemDto, List<ItemBookingView> bookings) {
+        for (ItemBookingView booking : bookings) {
+            if (Boolean.TRUE.equals(booking.getLast())) {
+                itemDto.setLastBooking(BookingMapper.toBookingInfoDto(booking));
+            } else {
+                itemDto.setNextBooking(BookingMapper.toBookingInfoDto(booking));
+            }
+        }
         return itemDto;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public List<ItemDto> search(String text, Long from, Integer size) {
+        return search(text, 0L, OffsetPageRequest.of(from, size));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemDto> searchAfter(String text, String after, Integer size) {
+        return search(text, PageCursor.decode(after).getId(), OffsetPageRequest.of(0L, size));
+    }
+
+    private List<ItemDto> search(String text, Long afterId, Pageable pageable) {
         if (text.isEmpty()) {
             return List.of();
         }
-        int startPage = Math.toIntExact(from / size);
-        PageRequest pageRequest = PageRequest.of(startPage, size);
-        return itemRepository.search(text, pageRequest).stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toList());
+        return itemSearchEngine.search(text, afterId, pageable);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public void checkIfUserIsOwner(Item item, Long ownerId) {
         if (!Objects.equals(ownerId, item.getOwner().getId())) {
@@ -140,7 +215,7 @@ public class ItemServiceImpl implements ItemService {
         }
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public Item checkIfItemExist(Long id) {
         Optional<Item> item = itemRepository.findById(id);
@@ -151,55 +226,52 @@ public class ItemServiceImpl implements ItemService {
         return item.get();
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public ItemSnapshot getItemSnapshot(Long id) {
+        Optional<ItemSnapshot> item = itemRepository.findSnapshotById(id);
+        if (item.isEmpty()) {
+            throw new NotFoundException(
+                    String.format("%s with id= %s not found", Item.class.getSimpleName(), id));
+        }
+        return item.get();
+    }
+
+    @Override
+    public Item getItemReference(Long id) {
+        return itemRepository.getReferenceById(id);
+    }
+
     @Transactional
     @Override
     public CommentDto addComment(Long id, Long authorId, CommentDto commentDto) {
-        User author = userService.checkIfUserExist(authorId);
-        Item item = checkIfItemExist(id);
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> pastBookings = bookingRepository.findAllPastBookings(author.getId(), now);
-        Optional<Booking> booking = pastBookings.stream()
-                .filter(b -> b.getItem().getId().equals(item.getId()))
-                .findFirst();
-        if (booking.isEmpty()) {
+        if (!bookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(authorId, id, LocalDateTime.now())) {
+            userService.checkIfUserExist(authorId);
+            getItemSnapshot(id);
             throw new BadRequestException("user can't comment item without past bookings");
         }
         Comment comment = CommentMapper.toComment(commentDto);
-        comment.setItem(item);
-        comment.setAuthor(author);
+        comment.setItem(getItemReference(id));
+        comment.setAuthor(userService.getUserReference(authorId));
         return CommentMapper.toCommentDto(commentRepository.saveAndFlush(comment));
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
-    public List<Item> getItemsByRequestIdIn(List<Long> requestIds) {
+    public List<ItemDto> getItemsByRequestIdIn(List<Long> requestIds) {
         return itemRepository.findAllByRequestIdIn(requestIds);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
-    public List<Item> getItemsByRequestId(Long requestId) {
+    public List<ItemDto> getItemsByRequestId(Long requestId) {
         return itemRepository.findAllByRequestId(requestId);
     }
 
-    private BookingInfoDto getLastItemBooking(Long id) {
-        Optional<Booking> lastBooking =
-                bookingRepository.findFirstByItemIdIsAndEndIsBeforeOrderByEndDesc(id, LocalDateTime.now());
-        return lastBooking.map(BookingMapper::toBookingInfoDto).orElse(null);
-    }
-
-    private BookingInfoDto getNextItemBooking(Long id) {
-        Optional<Booking> nextBooking =
-                bookingRepository.findFirstByItemIdIsAndStartIsAfterOrderByStartAsc(id, LocalDateTime.now());
-        return nextBooking.map(BookingMapper::toBookingInfoDto).orElse(null);
-    }
-
-    private ItemDto addBookings(ItemDto itemDto) {
-        BookingInfoDto lastBookingDto = getLastItemBooking(itemDto.getId());
-        BookingInfoDto nextBookingDto = getNextItemBooking(itemDto.getId());
-        itemDto.setLastBooking(lastBookingDto);
-        itemDto.setNextBooking(nextBookingDto);
-        return itemDto;
+    private ItemDto saveAndIndex(Item item) {
+        ItemDto savedItem = ItemMapper.toItemDto(itemRepository.saveAndFlush(item));
+        itemSearchEngine.index(savedItem);
+        return savedItem;
     }
 
     private ItemDto findComments(ItemDto itemDto, List<Comment> comments) {
@@ -28,6 +28,13 @@ public class ItemDto {
     public ItemDto() {
     }
 
+    /**
+     * Row constructor of the JPQL projections in ItemRepository.
+     */
+    public ItemDto(Long id, String name, String description, Boolean available, Long owner, Long requestId) {
+        this(id, name, description, available, owner, requestId, null, null, null);
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Immutable copy of the item fields needed to validate a booking, safe to keep in a cache across transactions.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemSnapshot {
+    private final Long id;
+    private final String name;
+    private final Long ownerId;
+    private final Boolean available;
+}
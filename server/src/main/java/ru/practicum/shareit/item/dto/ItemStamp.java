@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versions of everything the view of an item is built from, read without loading the view itself.
+ * {@code nextStart} and {@code nextEnd} are the first booking start and end after the read, when the last and next
+ * bookings shown to the owner change without any write.
+ */
+public interface ItemStamp {
+    Long getOwnerId();
+
+    Long getVersion();
+
+    Long getBookingsVersion();
+
+    Long getComments();
+
+    Long getLastCommentId();
+
+    Long getCommentAuthorsVersion();
+
+    LocalDateTime getNextStart();
+
+    LocalDateTime getNextEnd();
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "db", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DbItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<ItemDto> search(String text, Long afterId, Pageable pageable) {
+        return itemRepository.search(text, afterId, pageable);
+    }
+
+    @Override
+    public void index(ItemDto item) {
+    }
+
+    @Override
+    public void removeOwnerItems(Long ownerId) {
+    }
+}
@@ -0,0 +1,219 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram index over name and description of available items.
+ * A query intersects the posting lists of its own trigrams and checks the surviving candidates with a plain
+ * substring match, so it returns the same rows in the same id order as the database search.
+ * Queries shorter than a trigram scan the indexed items directly.
+ * <p>
+ * Changes committed while the index is loading may be applied before the chunk that read the older rows, so the
+ * load skips the items and owners changed meanwhile.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "index")
+@RequiredArgsConstructor
+public class IndexItemSearchEngine implements ItemSearchEngine {
+    static final int LOAD_CHUNK = 1000;
+    private static final int GRAM = 3;
+
+    private final ItemRepository itemRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Long, IndexedItem> items = new TreeMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private Set<Long> changedDuringLoad;
+    private Set<Long> ownersRemovedDuringLoad;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        write(() -> {
+            changedDuringLoad = new HashSet<>();
+            ownersRemovedDuringLoad = new HashSet<>();
+        });
+        try {
+            long afterId = 0L;
+            int loaded;
+            do {
+                List<IndexedItem> chunk = itemRepository.findIndexedItems(afterId, PageRequest.of(0, LOAD_CHUNK));
+                write(() -> chunk.stream()
+                        .filter(item -> !changedDuringLoad.contains(item.getId())
+                                && !ownersRemovedDuringLoad.contains(item.getOwnerId()))
+                        .forEach(this::put));
+                loaded = chunk.size();
+                if (loaded > 0) {
+                    afterId = chunk.get(loaded - 1).getId();
+                }
+            } while (loaded == LOAD_CHUNK);
+        } finally {
+            write(() -> {
+                changedDuringLoad = null;
+                ownersRemovedDuringLoad = null;
+                postings.values().forEach(PostingList::trim);
+            });
+        }
+        log.info("item search index loaded with {} items and {} trigrams", items.size(), postings.size());
+    }
+
+    @Override
+    public List<ItemDto> search(String text, Long afterId, Pageable pageable) {
+        String query = text.toUpperCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            return candidates(query, afterId)
+                    .filter(item -> matches(item, query))
+                    .skip(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .map(IndexItemSearchEngine::toItemDto)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(ItemDto item) {
+        afterCommit(() -> write(() -> {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(item.getId());
+            }
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                put(new IndexedItem(item.getId(), item.getName(), item.getDescription(),
+                        item.getOwner(), item.getRequestId()));
+            } else {
+                remove(item.getId());
+            }
+        }));
+    }
+
+    @Override
+    public void removeOwnerItems(Long ownerId) {
+        afterCommit(() -> write(() -> {
+            if (ownersRemovedDuringLoad != null) {
+                ownersRemovedDuringLoad.add(ownerId);
+            }
+            items.values().stream()
+                    .filter(i -> ownerId.equals(i.getOwnerId()))
+                    .map(IndexedItem::getId)
+                    .collect(Collectors.toList())
+                    .forEach(this::remove);
+        }));
+    }
+
+    private Stream<IndexedItem> candidates(String query, Long afterId) {
+        if (query.length() < GRAM) {
+            return items.tailMap(afterId, false).values().stream();
+        }
+        List<PostingList> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return Stream.empty();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        PostingList shortest = lists.get(0);
+        List<PostingList> others = lists.subList(1, lists.size());
+        return IntStream.range(shortest.positionAfter(afterId), shortest.size())
+                .mapToLong(shortest::get)
+                .filter(id -> others.stream().allMatch(list -> list.contains(id)))
+                .mapToObj(items::get);
+    }
+
+    private void put(IndexedItem item) {
+        remove(item.getId());
+        items.put(item.getId(), item);
+        for (String gram : grams(item)) {
+            postings.computeIfAbsent(gram, g -> new PostingList()).add(item.getId());
+        }
+    }
+
+    private void remove(Long id) {
+        IndexedItem old = items.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String gram : grams(old)) {
+            PostingList list = postings.get(gram);
+            list.remove(id);
+            if (list.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static boolean matches(IndexedItem item, String query) {
+        return item.getName().toUpperCase(Locale.ROOT).contains(query)
+                || item.getDescription().toUpperCase(Locale.ROOT).contains(query);
+    }
+
+    private static Set<String> grams(IndexedItem item) {
+        Set<String> grams = grams(item.getName().toUpperCase(Locale.ROOT));
+        grams.addAll(grams(item.getDescription().toUpperCase(Locale.ROOT)));
+        return grams;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static ItemDto toItemDto(IndexedItem item) {
+        return new ItemDto(item.getId(), item.getName(), item.getDescription(), true,
+                item.getOwnerId(), item.getRequestId(), null, null, null);
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
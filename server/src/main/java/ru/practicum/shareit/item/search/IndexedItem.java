@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Fields of an available item kept by the in-memory index, enough to answer a search without the database.
+ */
+@Getter
+@AllArgsConstructor
+public class IndexedItem {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final Long ownerId;
+    private final Long requestId;
+}
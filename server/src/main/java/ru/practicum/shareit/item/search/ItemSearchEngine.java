@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+
+/**
+ * Substring search over available items, selected with {@code shareit.search.engine=db|index}.
+ */
+public interface ItemSearchEngine {
+    List<ItemDto> search(String text, Long afterId, Pageable pageable);
+
+    void index(ItemDto item);
+
+    void removeOwnerItems(Long ownerId);
+}
@@ -0,0 +1,76 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exeption.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque keyset position: the sort key of the last row a client has seen, either (id) or (created, id).
+ * Clients get it in the {@value #NEXT_CURSOR_HEADER} header and send it back as the {@code after} parameter.
+ */
+@Getter
+public class PageCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SEPARATOR = "~";
+
+    private final LocalDateTime created;
+    private final Long id;
+
+    private PageCursor(LocalDateTime created, Long id) {
+        this.created = created;
+        this.id = id;
+    }
+
+    public static String encode(Long id) {
+        return encodeRaw(String.valueOf(id));
+    }
+
+    public static String encode(LocalDateTime created, Long id) {
+        return encodeRaw(created + SEPARATOR + id);
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new PageCursor(null, Long.parseLong(raw));
+            }
+            return new PageCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException(String.format("invalid page cursor = %s", token));
+        }
+    }
+
+    public LocalDateTime getRequiredCreated() {
+        if (created == null) {
+            throw new BadRequestException("page cursor does not contain creation time");
+        }
+        return created;
+    }
+
+    /**
+     * Wraps a page into a response carrying the cursor of its last row, unless the page is the last one.
+     */
+    public static <T> ResponseEntity<List<T>> toResponse(List<T> page, Integer size, Function<T, String> cursorOf) {
+        HttpHeaders headers = new HttpHeaders();
+        if (!page.isEmpty() && page.size() >= size) {
+            headers.set(NEXT_CURSOR_HEADER, cursorOf.apply(page.get(page.size() - 1)));
+        }
+        return ResponseEntity.ok().headers(headers).body(page);
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -2,7 +2,10 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.List;
@@ -31,18 +34,26 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAllRequestsPageable(
+    public ResponseEntity<List<ItemRequestDto>> getAllRequestsPageable(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @RequestParam(name = "from") Long from,
-            @RequestParam(name = "size") Integer size) {
-        log.info("get all requests from id = {} page size = {}", from, size);
-        return itemRequestService.getAllRequestsPageable(userId, from, size);
+            @RequestParam(name = "size") Integer size,
+            @RequestParam(name = "after", required = false) String after) {
+        log.info("get all requests from id = {} page size = {} after = {}", from, size, after);
+        List<ItemRequestDto> requests = after == null
+                ? itemRequestService.getAllRequestsPageable(userId, from, size)
+                : itemRequestService.getAllRequestsAfter(userId, after, size);
+        return PageCursor.toResponse(requests, size, r -> PageCursor.encode(r.getCreated(), r.getId()));
     }
 
     @GetMapping("/{requestId}")
     public ItemRequestDto getRequestById(@RequestHeader("X-Sharer-User-Id") Long requestorId,
-                                          @PathVariable("requestId") Long requestId) {
+                                          @PathVariable("requestId") Long requestId,
+                                          WebRequest request) {
         log.info("get request with id = {}", requestId);
+        if (request.checkNotModified(itemRequestService.getRequestTag(requestId, requestorId))) {
+            return null;
+        }
         return itemRequestService.getRequestById(requestId, requestorId);
     }
 }
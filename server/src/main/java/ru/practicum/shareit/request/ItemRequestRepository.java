@@ -2,12 +2,43 @@ package ru.practicum.shareit.request;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestStamp;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findAllByRequestorIdOrderByCreatedDesc(Long requestorId);
+    String REQUEST_DTO = " select new ru.practicum.shareit.request.dto.ItemRequestDto(r.id, r.description, " +
+            "r.requestor.id, r.created) " +
+            "from ItemRequest r ";
 
-    List<ItemRequest> findAllByRequestorIdIsNot(Long userId, Pageable pageable);
+    @Query(REQUEST_DTO +
+            "where r.id = ?1")
+    Optional<ItemRequestDto> findDtoById(Long id);
+
+    @Query(value = "select count(i.id) as items, max(i.id) as lastItemId, sum(i.version) as itemsVersion " +
+            "from requests r left join items i on i.request_id = r.id " +
+            "where r.id = ?1 " +
+            "group by r.id", nativeQuery = true)
+    Optional<ItemRequestStamp> findStampById(Long id);
+
+    @Query(REQUEST_DTO +
+            "where r.requestor.id = ?1 " +
+            "order by r.created desc")
+    List<ItemRequestDto> findAllByRequestorIdOrderByCreatedDesc(Long requestorId);
+
+    @Query(REQUEST_DTO +
+            "where r.requestor.id <> ?1")
+    List<ItemRequestDto> findAllByRequestorIdIsNot(Long userId, Pageable pageable);
+
+    @Query(REQUEST_DTO +
+            "where r.requestor.id <> ?1 " +
+            "and r.created <= ?2 " +
+            "and (r.created < ?2 or r.id < ?3) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequestDto> findAllByRequestorIdIsNotAfter(Long userId, LocalDateTime created, Long id, Pageable pageable);
 }
@@ -11,5 +11,9 @@ public interface ItemRequestService {
 
     List<ItemRequestDto> getAllRequestsPageable(Long userId, Long from, Integer size);
 
+    List<ItemRequestDto> getAllRequestsAfter(Long userId, String after, Integer size);
+
     ItemRequestDto getRequestById(Long requestId, Long requestorId);
+
+    String getRequestTag(Long requestId, Long requestorId);
 }
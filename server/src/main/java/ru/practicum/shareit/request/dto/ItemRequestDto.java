@@ -23,4 +23,11 @@ public class ItemRequestDto {
 
     public ItemRequestDto() {
     }
+
+    /**
+     * Row constructor of the JPQL projections in ItemRequestRepository.
+     */
+    public ItemRequestDto(Long id, String description, Long requestorId, LocalDateTime created) {
+        this(id, description, requestorId, created, null);
+    }
 }
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.request.dto;
+
+/**
+ * Versions of the items answering a request, read without loading the request view itself. The request row is
+ * never updated, so the items are all that can change.
+ */
+public interface ItemRequestStamp {
+    Long getItems();
+
+    Long getLastItemId();
+
+    Long getItemsVersion();
+}
@@ -1,19 +1,20 @@
 package ru.practicum.shareit.request.impl;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.cache.EntityTags;
 import ru.practicum.shareit.exeption.NotFoundException;
-import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.item.dto.ItemDto;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.ItemRequestMapper;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.request.ItemRequestService;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestStamp;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
@@ -41,52 +42,64 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return ItemRequestMapper.toItemRequestDto(itemRequestRepository.save(itemRequest));
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public List<ItemRequestDto> getUsersRequests(Long requestorId) {
         User requestor = userService.checkIfUserExist(requestorId);
-        List<ItemRequestDto> requests = itemRequestRepository
-                .findAllByRequestorIdOrderByCreatedDesc(requestor.getId())
-                .stream()
-                .map(ItemRequestMapper::toItemRequestDto)
-                .collect(Collectors.toList());
-        List<Long> requestIds = requests.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
-        List<Item> items = itemService.getItemsByRequestIdIn(requestIds);
-        return requests.stream().map(r -> findItems(r, items)).collect(Collectors.toList());
+        List<ItemRequestDto> requests = itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(requestor.getId());
+        return addItems(requests);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public List<ItemRequestDto> getAllRequestsPageable(Long userId, Long from, Integer size) {
         userService.checkIfUserExist(userId);
-        int startPage = Math.toIntExact(from / size);
+        Sort sort = Sort.by("created").descending().and(Sort.by("id").descending());
         List<ItemRequestDto> requests = itemRequestRepository
-                .findAllByRequestorIdIsNot(userId,
-                        PageRequest.of(startPage, size, Sort.by("created").descending()))
-                .stream().map(ItemRequestMapper::toItemRequestDto)
-                .collect(Collectors.toList());
-        List<Long> requestIds = requests.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
-        List<Item> items = itemService.getItemsByRequestIdIn(requestIds);
-        return requests.stream().map(r -> findItems(r, items)).collect(Collectors.toList());
+                .findAllByRequestorIdIsNot(userId, OffsetPageRequest.of(from, size, sort));
+        return addItems(requests);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemRequestDto> getAllRequestsAfter(Long userId, String after, Integer size) {
+        userService.checkIfUserExist(userId);
+        PageCursor cursor = PageCursor.decode(after);
+        List<ItemRequestDto> requests = itemRequestRepository
+                .findAllByRequestorIdIsNotAfter(userId, cursor.getRequiredCreated(), cursor.getId(),
+                        OffsetPageRequest.of(0L, size));
+        return addItems(requests);
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public ItemRequestDto getRequestById(Long requestId, Long requestorId) {
         userService.checkIfUserExist(requestorId);
-        Optional<ItemRequest> itemRequest = itemRequestRepository.findById(requestId);
+        Optional<ItemRequestDto> itemRequest = itemRequestRepository.findDtoById(requestId);
         if (itemRequest.isEmpty()) {
             throw new NotFoundException(String.format("request with id = %s not found", requestId));
         }
-        List<Item> items = itemService.getItemsByRequestId(requestId);
-        ItemRequestDto itemRequestDto = ItemRequestMapper.toItemRequestDto(itemRequest.get());
-        return findItems(itemRequestDto, items);
+        return findItems(itemRequest.get(), itemService.getItemsByRequestId(requestId));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public String getRequestTag(Long requestId, Long requestorId) {
+        userService.checkIfUserExist(requestorId);
+        ItemRequestStamp stamp = itemRequestRepository.findStampById(requestId)
+                .orElseThrow(() -> new NotFoundException(String.format("request with id = %s not found", requestId)));
+        return EntityTags.of("request", requestId, stamp.getItems(), stamp.getLastItemId(), stamp.getItemsVersion());
+    }
+
+    private List<ItemRequestDto> addItems(List<ItemRequestDto> requests) {
+        List<Long> requestIds = requests.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
+        List<ItemDto> items = itemService.getItemsByRequestIdIn(requestIds);
+        return requests.stream().map(r -> findItems(r, items)).collect(Collectors.toList());
     }
 
-    private ItemRequestDto findItems(ItemRequestDto itemRequestDto, List<Item> items) {
+    private ItemRequestDto findItems(ItemRequestDto itemRequestDto, List<ItemDto> items) {
         List<ItemDto> itemDtos = items.stream()
-                .filter(item -> item.getRequest().getId().equals(itemRequestDto.getId()))
-                .map(ItemMapper::toItemDto)
+                .filter(item -> item.getRequestId().equals(itemRequestDto.getId()))
                 .collect(Collectors.toList());
         itemRequestDto.setItems(itemDtos);
         return itemRequestDto;
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.retry;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.hibernate.SessionFactory;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
+import org.springframework.retry.interceptor.RetryInterceptorBuilder;
+import org.springframework.retry.listener.RetryListenerSupport;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Runs {@link RetryOnConflict} methods again after an {@link OptimisticLockingFailureException}, with a short
+ * randomized backoff and a bounded number of attempts. The advisor is ordered before the transaction interceptor,
+ * so every attempt starts a new transaction and re-reads the current versions.
+ * <p>
+ * The entity that lost the race is evicted from the second-level cache before the next attempt, otherwise the
+ * attempt would read the same stale version from the cache and fail again.
+ */
+@Configuration
+public class RetryConfig {
+    static final int BACKOFF_MULTIPLIER = 2;
+    static final int MAX_BACKOFF_MULTIPLE = 8;
+
+    @Bean
+    public Advisor retryOnConflictAdvisor(@Value("${shareit.retry.max-attempts}") int maxAttempts,
+                                          @Value("${shareit.retry.delay}") Duration delay,
+                                          ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        ExponentialRandomBackOffPolicy backOff = new ExponentialRandomBackOffPolicy();
+        backOff.setInitialInterval(delay.toMillis());
+        backOff.setMultiplier(BACKOFF_MULTIPLIER);
+        backOff.setMaxInterval(delay.toMillis() * MAX_BACKOFF_MULTIPLE);
+        RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(maxAttempts,
+                Map.of(OptimisticLockingFailureException.class, true), true));
+        retryTemplate.setBackOffPolicy(backOff);
+        retryTemplate.registerListener(new StaleEntityEvictor(entityManagerFactory));
+        MethodInterceptor interceptor = RetryInterceptorBuilder.stateless()
+                .retryOperations(retryTemplate)
+                .build();
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(RetryOnConflict.class), interceptor);
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return advisor;
+    }
+
+    /**
+     * Looks the entity manager factory up on the first conflict: advisors are created before the other beans, and
+     * depending on the factory directly would create it and its data source before every bean post-processor.
+     */
+    static class StaleEntityEvictor extends RetryListenerSupport {
+        private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+        StaleEntityEvictor(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+            this.entityManagerFactory = entityManagerFactory;
+        }
+
+        @Override
+        public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+                                                     Throwable throwable) {
+            if (!(throwable instanceof ObjectOptimisticLockingFailureException)) {
+                return;
+            }
+            ObjectOptimisticLockingFailureException conflict = (ObjectOptimisticLockingFailureException) throwable;
+            String entityName = conflict.getPersistentClassName();
+            if (entityName == null) {
+                return;
+            }
+            org.hibernate.Cache cache = entityManagerFactory.getObject().unwrap(SessionFactory.class).getCache();
+            if (conflict.getIdentifier() instanceof Serializable) {
+                cache.evictEntityData(entityName, (Serializable) conflict.getIdentifier());
+            } else {
+                cache.evictEntityData(entityName);
+            }
+        }
+    }
+}
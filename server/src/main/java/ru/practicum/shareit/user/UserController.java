@@ -2,6 +2,7 @@ package ru.practicum.shareit.user;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
@@ -27,8 +28,11 @@ public class UserController {
 
 
     @GetMapping("/{id}")
-    public UserDto findUser(@PathVariable("id") Long id) {
+    public UserDto findUser(@PathVariable("id") Long id, WebRequest request) {
         log.info("get user with id = {}", id);
+        if (request.checkNotModified(userService.getUserTag(id))) {
+            return null;
+        }
         return userService.findUser(id);
     }
 
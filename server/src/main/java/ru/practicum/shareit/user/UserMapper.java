@@ -2,6 +2,7 @@ package ru.practicum.shareit.user;
 
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserInfoDto;
+import ru.practicum.shareit.user.dto.UserSnapshot;
 import ru.practicum.shareit.user.model.User;
 
 public class UserMapper {
@@ -17,6 +18,14 @@ public class UserMapper {
         );
     }
 
+    public static UserDto toUserDto(UserSnapshot user) {
+        return new UserDto(
+                user.getId(),
+                user.getName(),
+                user.getEmail()
+        );
+    }
+
     public static UserInfoDto toUserInfoDto(User user) {
         return new UserInfoDto(user.getId());
     }
@@ -1,8 +1,32 @@
 package ru.practicum.shareit.user;
 
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.cache.CacheConfig;
+import ru.practicum.shareit.user.dto.UserSnapshot;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface UserRepository extends JpaRepository<User, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<User> findAll();
+
+    @Cacheable(cacheNames = CacheConfig.USERS, unless = "#result == null "
+            + "|| T(ru.practicum.shareit.datasource.ReplicaRoutingDataSource).isReadingReplica()")
+    @Query(" select new ru.practicum.shareit.user.dto.UserSnapshot(u.id, u.name, u.email) " +
+            "from User u " +
+            "where u.id = ?1")
+    Optional<UserSnapshot> findSnapshotById(Long id);
+
+    @Query("select u.version from User u where u.id = ?1")
+    Optional<Long> findVersionById(Long id);
 }
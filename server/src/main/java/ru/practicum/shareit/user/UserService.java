@@ -10,6 +10,8 @@ public interface UserService {
 
     UserDto findUser(Long id);
 
+    String getUserTag(Long id);
+
     UserDto addNewUser(UserDto userDto);
 
     UserDto updateUser(UserDto userDto);
@@ -17,4 +19,6 @@ public interface UserService {
     void deleteUser(Long id);
 
     User checkIfUserExist(Long id);
+
+    User getUserReference(Long id);
 }
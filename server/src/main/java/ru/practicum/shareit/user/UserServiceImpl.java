@@ -1,12 +1,26 @@
 package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.availability.AvailabilityEngine;
+import ru.practicum.shareit.cache.CacheConfig;
+import ru.practicum.shareit.cache.EntityTags;
+import ru.practicum.shareit.datasource.ReplicaRoutingDataSource;
 import ru.practicum.shareit.exeption.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserSnapshot;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -16,8 +30,12 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository repository;
+    private final BookingRepository bookingRepository;
+    private final ItemSearchEngine itemSearchEngine;
+    private final AvailabilityEngine availabilityEngine;
+    private final EntityManagerFactory entityManagerFactory;
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public List<UserDto> getUsers() {
         return repository.findAll()
@@ -26,24 +44,45 @@ public class UserServiceImpl implements UserService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public UserDto findUser(Long id) {
-        return UserMapper.toUserDto(checkIfUserExist(id));
+        return UserMapper.toUserDto(getUserSnapshot(id));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public String getUserTag(Long id) {
+        Long version = repository.findVersionById(id)
+                .orElseThrow(() -> new NotFoundException(
+                        String.format("%s with id= %s not found", User.class.getSimpleName(), id)));
+        return EntityTags.of("user", id, version);
     }
 
+    /**
+     * Makes the new user read from the primary for a while, so that fetching it right away does not miss it on a
+     * lagging replica.
+     */
     @Transactional
     @Override
     public UserDto addNewUser(UserDto userDto) {
         User user = UserMapper.toUser(userDto);
-        return UserMapper.toUserDto(repository.saveAndFlush(user));
+        User savedUser = repository.saveAndFlush(user);
+        ReplicaRoutingDataSource.rememberWriter(savedUser.getId());
+        return UserMapper.toUserDto(savedUser);
     }
 
     @Transactional
     @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#userDto.id")
     public UserDto updateUser(UserDto userDto) {
         Long userId = userDto.getId();
-        User userToUpdate = checkIfUserExist(userId);
+        Optional<User> user = repository.findById(userId);
+        if (user.isEmpty()) {
+            throw new NotFoundException(
+                    String.format("%s with id= %s not found", User.class.getSimpleName(), userId));
+        }
+        User userToUpdate = user.get();
         if (userDto.getName() != null) {
             userToUpdate.setName(userDto.getName());
         }
@@ -53,21 +92,62 @@ public class UserServiceImpl implements UserService {
         return UserMapper.toUserDto(repository.saveAndFlush(userToUpdate));
     }
 
+    /**
+     * The database cascades the delete to the items, requests and bookings of the user, bypassing Hibernate, so the
+     * items the user booked get new bookings versions and the item and request cache regions are dropped once the
+     * transaction commits.
+     */
     @Transactional
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true)
+    })
     public void deleteUser(Long id) {
-        User userToDelete = checkIfUserExist(id);
+        UserSnapshot userToDelete = getUserSnapshot(id);
+        bookingRepository.raiseBookingsVersionsOfBooker(userToDelete.getId());
         repository.deleteById(userToDelete.getId());
+        itemSearchEngine.removeOwnerItems(userToDelete.getId());
+        availabilityEngine.evictAll();
+        afterCommit(() -> {
+            entityManagerFactory.getCache().evict(Item.class);
+            entityManagerFactory.getCache().evict(ItemRequest.class);
+        });
     }
 
-    @Transactional
+    /**
+     * Checks the user against the snapshot cache and returns a lazy reference, so a cache hit costs no query.
+     */
+    @Transactional(readOnly = true)
     @Override
     public User checkIfUserExist(Long id) {
-        Optional<User> user = repository.findById(id);
+        return repository.getReferenceById(getUserSnapshot(id).getId());
+    }
+
+    @Override
+    public User getUserReference(Long id) {
+        return repository.getReferenceById(id);
+    }
+
+    private UserSnapshot getUserSnapshot(Long id) {
+        Optional<UserSnapshot> user = repository.findSnapshotById(id);
         if (user.isEmpty()) {
             throw new NotFoundException(
                     String.format("%s with id= %s not found", User.class.getSimpleName(), id));
         }
         return user.get();
     }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.user.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Immutable copy of a user row, safe to keep in a cache across transactions.
+ */
+@Getter
+@AllArgsConstructor
+public class UserSnapshot {
+    private final Long id;
+    private final String name;
+    private final String email;
+}
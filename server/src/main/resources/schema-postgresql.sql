@@ -0,0 +1,17 @@
+-- PostgreSQL only: the test profile runs on H2, which skips this script, so the trigram indexes and the exclusion
+-- constraint are checked by hand against PostgreSQL; BookingServiceTest covers the mapping of its SQLState 23P01
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS ix_items_name_trgm
+    ON items USING gin (upper(name) gin_trgm_ops) WHERE is_available = true;
+CREATE INDEX IF NOT EXISTS ix_items_description_trgm
+    ON items USING gin (upper(description) gin_trgm_ops) WHERE is_available = true;
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- the statuses that block an item in the availability engine, which only serializes the writers of one instance
+ALTER TABLE bookings
+    ADD CONSTRAINT ex_bookings_blocking_overlap
+        EXCLUDE USING gist (item_id WITH =, tsrange(start_time, end_time) WITH &&)
+        WHERE (status IN ('WAITING', 'APPROVED'));
@@ -10,9 +10,10 @@ drop table if exists users;
 
 CREATE TABLE IF NOT EXISTS users
 (
-    id    BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-    name  VARCHAR(255)                            NOT NULL,
-    email VARCHAR(512)                            NOT NULL,
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    name    VARCHAR(255)                            NOT NULL,
+    email   VARCHAR(512)                            NOT NULL,
+    version BIGINT DEFAULT 0                        NOT NULL,
     CONSTRAINT pk_user PRIMARY KEY (id),
     CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
 );
@@ -23,24 +24,20 @@ CREATE TABLE IF NOT EXISTS requests
     requestor_id BIGINT                                  NOT NULL,
     created      TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
     CONSTRAINT pk_requests
-        PRIMARY KEY (id),
-    CONSTRAINT fk_requests
-        FOREIGN KEY (requestor_id) REFERENCES users ON DELETE CASCADE
+        PRIMARY KEY (id)
 );
 CREATE TABLE IF NOT EXISTS items
 (
-    id           BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-    name         VARCHAR(255)                            NOT NULL,
-    description  VARCHAR(512)                            NOT NULL,
-    is_available BOOLEAN                                 NOT NULL,
-    owner_id     BIGINT                                  NOT NULL,
-    request_id   BIGINT DEFAULT NULL,
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    name             VARCHAR(255)                            NOT NULL,
+    description      VARCHAR(512)                            NOT NULL,
+    is_available     BOOLEAN                                 NOT NULL,
+    owner_id         BIGINT                                  NOT NULL,
+    request_id       BIGINT DEFAULT NULL,
+    version          BIGINT DEFAULT 0                        NOT NULL,
+    bookings_version BIGINT DEFAULT 0                        NOT NULL,
     CONSTRAINT pk_items
-        PRIMARY KEY (id),
-    CONSTRAINT fk_items_1
-        FOREIGN KEY (owner_id) REFERENCES users ON DELETE CASCADE,
-    CONSTRAINT fk_items_2
-        FOREIGN KEY (request_id) REFERENCES requests ON DELETE SET NULL
+        PRIMARY KEY (id)
 );
 CREATE TABLE IF NOT EXISTS bookings
 (
@@ -50,12 +47,9 @@ CREATE TABLE IF NOT EXISTS bookings
     item_id    BIGINT                                  NOT NULL,
     booker_id  BIGINT                                  NOT NULL,
     status     VARCHAR(20)                             NOT NULL,
+    version    BIGINT DEFAULT 0                        NOT NULL,
     CONSTRAINT pk_bookings
-        PRIMARY KEY (id),
-    CONSTRAINT fk_bookings_1
-        FOREIGN KEY (item_id) REFERENCES items ON DELETE CASCADE,
-    CONSTRAINT fk_bookings_2
-        FOREIGN KEY (booker_id) REFERENCES users ON DELETE CASCADE
+        PRIMARY KEY (id)
 );
 CREATE TABLE IF NOT EXISTS comments
 (
@@ -65,9 +59,36 @@ CREATE TABLE IF NOT EXISTS comments
     author_id BIGINT                                  NOT NULL,
     created   TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
     CONSTRAINT pk_comments
-        PRIMARY KEY (id),
-    CONSTRAINT fk_comments_1
-        FOREIGN KEY (item_id) REFERENCES items ON DELETE CASCADE,
-    CONSTRAINT fk_comments_2
-        FOREIGN KEY (author_id) REFERENCES users ON DELETE CASCADE
+        PRIMARY KEY (id)
 );
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_id ON bookings (booker_id, id, start_time, end_time);
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_status ON bookings (booker_id, status, id);
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_item_end ON bookings (booker_id, item_id, end_time);
+CREATE INDEX IF NOT EXISTS ix_bookings_item ON bookings (item_id);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_status ON bookings (item_id, status, id);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_start ON bookings (item_id, start_time);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_end ON bookings (item_id, end_time);
+CREATE INDEX IF NOT EXISTS ix_bookings_status ON bookings (status, start_time);
+CREATE INDEX IF NOT EXISTS ix_items_owner ON items (owner_id);
+CREATE INDEX IF NOT EXISTS ix_items_request ON items (request_id);
+CREATE INDEX IF NOT EXISTS ix_comments_item ON comments (item_id);
+CREATE INDEX IF NOT EXISTS ix_requests_requestor ON requests (requestor_id);
+CREATE INDEX IF NOT EXISTS ix_requests_created ON requests (created, id);
+
+-- foreign keys are added after the indexes, so that H2 backs each of them with the index above on exactly its column
+-- instead of creating one of its own, which its planner would pick over the indexes PostgreSQL actually has
+ALTER TABLE requests
+    ADD CONSTRAINT fk_requests FOREIGN KEY (requestor_id) REFERENCES users ON DELETE CASCADE;
+ALTER TABLE items
+    ADD CONSTRAINT fk_items_1 FOREIGN KEY (owner_id) REFERENCES users ON DELETE CASCADE;
+ALTER TABLE items
+    ADD CONSTRAINT fk_items_2 FOREIGN KEY (request_id) REFERENCES requests ON DELETE SET NULL;
+ALTER TABLE bookings
+    ADD CONSTRAINT fk_bookings_1 FOREIGN KEY (item_id) REFERENCES items ON DELETE CASCADE;
+ALTER TABLE bookings
+    ADD CONSTRAINT fk_bookings_2 FOREIGN KEY (booker_id) REFERENCES users ON DELETE CASCADE;
+ALTER TABLE comments
+    ADD CONSTRAINT fk_comments_1 FOREIGN KEY (item_id) REFERENCES items ON DELETE CASCADE;
+ALTER TABLE comments
+    ADD CONSTRAINT fk_comments_2 FOREIGN KEY (author_id) REFERENCES users ON DELETE CASCADE;
@@ -0,0 +1,76 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Base of the per-feature query budget tests. Each endpoint is called against the real database with cold caches
+ * and must succeed within the number of SQL statements its test declares.
+ * Fixtures should hold several rows per listing, so that a query per row exceeds the budget.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryBudgetTest.QueryCountingConfig.class)
+public abstract class QueryBudgetTest {
+    protected static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    protected MockMvc mockMvc;
+    @Autowired
+    protected ObjectMapper mapper;
+    @Autowired
+    private CacheManager cacheManager;
+
+    protected MvcResult assertWithinBudget(int budget, MockHttpServletRequestBuilder request) throws Exception {
+        cacheManager.getCacheNames().forEach(name -> Objects.requireNonNull(cacheManager.getCache(name)).clear());
+        QueryCountingDataSource.start();
+        MvcResult result;
+        List<String> statements;
+        try {
+            result = mockMvc.perform(request).andExpect(status().is2xxSuccessful()).andReturn();
+        } finally {
+            statements = QueryCountingDataSource.stop();
+        }
+        assertFalse(statements.isEmpty(), "no statement was counted, the data source is not wrapped");
+        assertTrue(statements.size() <= budget, String.format("%s %s ran %d statements, budget is %d:%n%s",
+                result.getRequest().getMethod(), result.getRequest().getRequestURI(), statements.size(), budget,
+                String.join(System.lineSeparator(), statements)));
+        return result;
+    }
+
+    protected static String unique(String email) {
+        return System.nanoTime() + email;
+    }
+
+    @TestConfiguration
+    public static class QueryCountingConfig {
+        @Bean
+        static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource && !(bean instanceof QueryCountingDataSource)
+                            ? new QueryCountingDataSource((DataSource) bean)
+                            : bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.shareit;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records every SQL statement executed on the current thread between {@link #start()} and {@link #stop()}.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    public QueryCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    public static void start() {
+        STATEMENTS.set(new ArrayList<>());
+    }
+
+    public static List<String> stop() {
+        List<String> statements = STATEMENTS.get();
+        STATEMENTS.remove();
+        return statements == null ? List.of() : statements;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    private static Connection connection(Connection target) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof CallableStatement) {
+                return statement(CallableStatement.class, (Statement) result, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement) {
+                return statement(PreparedStatement.class, (Statement) result, (String) args[0]);
+            }
+            if (result instanceof Statement) {
+                return statement(Statement.class, (Statement) result, null);
+            }
+            return result;
+        });
+    }
+
+    private static <T extends Statement> T statement(Class<T> type, Statement target, String sql) {
+        return proxy(type, (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                record(args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql);
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private static void record(String sql) {
+        List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
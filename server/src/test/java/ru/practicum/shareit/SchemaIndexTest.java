@@ -0,0 +1,175 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.comment.CommentRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.request.ItemRequestRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Calls each repository finder that filters on more than the primary key, captures the SQL Hibernate generated
+ * for it and checks with EXPLAIN that H2 answers it from the index of schema.sql meant for it.
+ * <p>
+ * schema.sql adds the foreign keys after the indexes, so H2 backs them with those indexes instead of indexes of its
+ * own that PostgreSQL would not have. A plan passes only on the named index.
+ * <p>
+ * Left out: lookups and updates by primary key, {@code ItemRepository.findIndexedItems}, which walks the primary
+ * key, and {@code ItemRepository.search}, whose substring predicates are served by the trigram indexes of
+ * schema-postgresql.sql and can only scan on H2.
+ */
+@DataJpaTest
+@Import(QueryBudgetTest.QueryCountingConfig.class)
+class SchemaIndexTest {
+    private static final Pageable PAGE = OffsetPageRequest.of(0L, 10);
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static Stream<Arguments> finders() {
+        return Stream.of(
+                finder("BookingRepository.findAllByBookerIdAndIdLessThanOrderByIdDesc",
+                        t -> t.bookingRepository.findAllByBookerIdAndIdLessThanOrderByIdDesc(1L, 100L, PAGE),
+                        "ix_bookings_booker_id"),
+                finder("BookingRepository.findAllRejected",
+                        t -> t.bookingRepository.findAllRejected(1L, 100L, PAGE),
+                        "ix_bookings_booker_status"),
+                finder("BookingRepository.findAllWaiting",
+                        t -> t.bookingRepository.findAllWaiting(1L, 100L, PAGE),
+                        "ix_bookings_booker_status"),
+                finder("BookingRepository.findAllFutureBookings",
+                        t -> t.bookingRepository.findAllFutureBookings(1L, NOW, 100L, PAGE),
+                        "ix_bookings_booker_id"),
+                finder("BookingRepository.findAllPastBookings",
+                        t -> t.bookingRepository.findAllPastBookings(1L, NOW, 100L, PAGE),
+                        "ix_bookings_booker_id"),
+                finder("BookingRepository.findAllCurrentBookings",
+                        t -> t.bookingRepository.findAllCurrentBookings(1L, NOW, 100L, PAGE),
+                        "ix_bookings_booker_id"),
+                finder("BookingRepository.findAllOwnersBookings",
+                        t -> t.bookingRepository.findAllOwnersBookings(1L, 100L, PAGE),
+                        "ix_items_owner", "ix_bookings_item"),
+                finder("BookingRepository.findAllOwnersWaiting",
+                        t -> t.bookingRepository.findAllOwnersWaiting(1L, 100L, PAGE),
+                        "ix_items_owner", "ix_bookings_item_status"),
+                finder("BookingRepository.findAllOwnersRejected",
+                        t -> t.bookingRepository.findAllOwnersRejected(1L, 100L, PAGE),
+                        "ix_items_owner", "ix_bookings_item_status"),
+                finder("BookingRepository.findAllOwnersPastBookings",
+                        t -> t.bookingRepository.findAllOwnersPastBookings(1L, NOW, 100L, PAGE),
+                        "ix_items_owner", "ix_bookings_item_end"),
+                finder("BookingRepository.findAllOwnersFutureBookings",
+                        t -> t.bookingRepository.findAllOwnersFutureBookings(1L, NOW, 100L, PAGE),
+                        "ix_items_owner", "ix_bookings_item_start"),
+                finder("BookingRepository.findAllOwnersCurrentBookings",
+                        t -> t.bookingRepository.findAllOwnersCurrentBookings(1L, NOW, 100L, PAGE),
+                        "ix_items_owner", "ix_bookings_item_start"),
+                finder("BookingRepository.findLastAndNextBookings",
+                        t -> t.bookingRepository.findLastAndNextBookings(List.of(1L, 2L), NOW),
+                        "ix_bookings_item_end", "ix_bookings_item_start"),
+                finder("BookingRepository.existsByBookerIdAndItemIdAndEndIsBefore",
+                        t -> t.bookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(1L, 1L, NOW),
+                        "ix_bookings_booker_item_end"),
+                finder("BookingRepository.claimStaleWaiting",
+                        t -> t.bookingRepository.claimStaleWaiting(NOW, PAGE),
+                        "ix_bookings_status"),
+                finder("BookingRepository.findBlockingIntervals",
+                        t -> t.bookingRepository.findBlockingIntervals(1L),
+                        "ix_bookings_item"),
+                finder("BookingRepository.findBlockingIntervalsBetween",
+                        t -> t.bookingRepository.findBlockingIntervalsBetween(1L, NOW, NOW.plusDays(1)),
+                        "ix_bookings_item_start"),
+                finder("ItemRepository.findAllByOwnerIdIsAndIdGreaterThanOrderById",
+                        t -> t.itemRepository.findAllByOwnerIdIsAndIdGreaterThanOrderById(1L, 0L, PAGE),
+                        "ix_items_owner"),
+                finder("ItemRepository.findAllByRequestIdIn",
+                        t -> t.itemRepository.findAllByRequestIdIn(List.of(1L, 2L)),
+                        "ix_items_request"),
+                finder("ItemRepository.findAllByRequestId",
+                        t -> t.itemRepository.findAllByRequestId(1L),
+                        "ix_items_request"),
+                finder("ItemRepository.findStampById",
+                        t -> t.itemRepository.findStampById(1L, NOW),
+                        "ix_comments_item", "ix_bookings_item_start", "ix_bookings_item_end"),
+                finder("CommentRepository.findAllByItemIdIs",
+                        t -> t.commentRepository.findAllByItemIdIs(1L),
+                        "ix_comments_item"),
+                finder("CommentRepository.findAllByItemIdIn",
+                        t -> t.commentRepository.findAllByItemIdIn(List.of(1L, 2L)),
+                        "ix_comments_item"),
+                finder("ItemRequestRepository.findAllByRequestorIdOrderByCreatedDesc",
+                        t -> t.itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(1L),
+                        "ix_requests_requestor"),
+                finder("ItemRequestRepository.findStampById",
+                        t -> t.itemRequestRepository.findStampById(1L),
+                        "ix_items_request"),
+                finder("ItemRequestRepository.findAllByRequestorIdIsNotAfter",
+                        t -> t.itemRequestRepository.findAllByRequestorIdIsNotAfter(1L, NOW, 100L, PAGE),
+                        "ix_requests_created")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("finders")
+    void finder_whenExplained_thenUsesIndexFromSchema(String finder, Consumer<SchemaIndexTest> call,
+                                                      List<String> indexes) {
+        QueryCountingDataSource.start();
+        List<String> statements;
+        try {
+            call.accept(this);
+        } finally {
+            statements = QueryCountingDataSource.stop();
+        }
+        assertEquals(1, statements.size(), () -> finder + " ran " + statements);
+
+        String plan = explain(statements.get(0));
+        for (String index : indexes) {
+            assertTrue(exists(index), () -> index + " is missing from schema.sql");
+            assertTrue(plan.contains("/* public." + index + ":"),
+                    () -> finder + " does not use " + index + ":\n" + plan);
+        }
+    }
+
+    private boolean exists(String index) {
+        return jdbcTemplate.queryForObject("select count(*) from information_schema.indexes "
+                + "where lower(index_name) = ?", Integer.class, index) > 0;
+    }
+
+    private static Arguments finder(String name, Consumer<SchemaIndexTest> call, String... indexes) {
+        return Arguments.of(name, call, List.of(indexes));
+    }
+
+    /**
+     * Plan of the statement with every parameter bound to null, in lower case. H2 picks indexes by cost
+     * without looking at the values.
+     */
+    private String explain(String sql) {
+        Object[] nulls = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        return String.join(System.lineSeparator(), jdbcTemplate.queryForList("explain " + sql, String.class, nulls))
+                .toLowerCase(Locale.ROOT);
+    }
+}
@@ -9,9 +9,12 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.exeption.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemInfoDto;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.dto.UserInfoDto;
 
 import java.nio.charset.StandardCharsets;
@@ -19,6 +22,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -84,6 +88,23 @@ class BookingControllerTest {
         verify(bookingService, times(1)).approveBooking(any(), any(), any());
     }
 
+    @Test
+    void approveBookings_whenInvoked_thenReturnStatusOkAndListOfBookingsJson() throws Exception {
+        when(bookingService.approveBookings(eq(1L), anyList()))
+                .thenReturn(List.of(BookingApprovalResultDto.applied(bookingDto)));
+
+        mockMvc.perform(patch("/bookings/batch")
+                        .content(mapper.writeValueAsString(List.of(new BookingApprovalDto(1L, true))))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookingId", is(bookingDto.getId()), Long.class))
+                .andExpect(jsonPath("$[0].booking.id", is(bookingDto.getId()), Long.class));
+        verify(bookingService).approveBookings(eq(1L), argThat(batch -> batch.get(0).getApproved()));
+    }
+
     @Test
     void getBookign_whenFound_thenReturnStatusOkAndBookingJson() throws Exception {
         when(bookingService.getBooking(any(), any())).thenReturn(bookingDto);
@@ -136,4 +157,36 @@ class BookingControllerTest {
         verify(bookingService, times(1)).getOwnerBookings(any(), any(), any(), any());
     }
 
+    @Test
+    void getUserBookings_whenAfterGiven_thenUseCursorAndReturnNextCursorHeader() throws Exception {
+        String after = PageCursor.encode(5L);
+        when(bookingService.getUserBookingsAfter(1L, "ALL", after, 1)).thenReturn(List.of(bookingDto));
+
+        mockMvc.perform(get("/bookings")
+                        .param("state", "ALL")
+                        .param("from", String.valueOf(0))
+                        .param("after", after)
+                        .param("size", String.valueOf(1))
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PageCursor.NEXT_CURSOR_HEADER, PageCursor.encode(bookingDto.getId())))
+                .andExpect(jsonPath("$.[0].id", is(bookingDto.getId()), Long.class));
+        verify(bookingService, never()).getUserBookings(any(), any(), any(), any());
+    }
+
+    @Test
+    void getOwnerBookings_whenAfterGiven_thenUseCursor() throws Exception {
+        String after = PageCursor.encode(5L);
+        when(bookingService.getOwnerBookingsAfter(1L, "ALL", after, 10)).thenReturn(List.of(bookingDto));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .param("state", "ALL")
+                        .param("from", String.valueOf(0))
+                        .param("after", after)
+                        .param("size", String.valueOf(10))
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(PageCursor.NEXT_CURSOR_HEADER));
+        verify(bookingService, times(1)).getOwnerBookingsAfter(1L, "ALL", after, 10);
+    }
 }
\ No newline at end of file
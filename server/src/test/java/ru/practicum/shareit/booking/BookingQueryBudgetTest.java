@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import ru.practicum.shareit.QueryBudgetTest;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static ru.practicum.shareit.booking.BookingStatus.WAITING;
+
+class BookingQueryBudgetTest extends QueryBudgetTest {
+    private static final int CREATE_BOOKING = 4;
+    private static final int APPROVE_BOOKING = 3;
+    private static final int APPROVE_BOOKINGS = 3;
+    private static final int GET_BOOKING = 2;
+    private static final int GET_USER_BOOKINGS = 2;
+    private static final int GET_OWNER_BOOKINGS = 2;
+    private static final int ITEMS = 3;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+
+    UserDto owner;
+    UserDto booker;
+    List<ItemDto> items = new ArrayList<>();
+    List<BookingDto> bookings = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        owner = userService.addNewUser(new UserDto(null, "owner", unique("owner@email")));
+        booker = userService.addNewUser(new UserDto(null, "booker", unique("booker@email")));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ITEMS; i++) {
+            ItemDto item = itemService.addNewItem(new ItemDto(null, "drill", "drill", true, owner.getId(),
+                    null, null, null, null));
+            items.add(item);
+            bookings.add(bookingService.createNewBooking(new BookingDto(null, now.plusDays(i + 1),
+                    now.plusDays(i + 2), item.getId(), null, null, WAITING), booker.getId()));
+        }
+    }
+
+    @Test
+    void createNewBooking() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        assertWithinBudget(CREATE_BOOKING, post("/bookings")
+                .header(USER_HEADER, booker.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new BookingDto(null, now.plusDays(5), now.plusDays(6),
+                        items.get(0).getId(), null, null, WAITING))));
+    }
+
+    @Test
+    void approveBooking() throws Exception {
+        assertWithinBudget(APPROVE_BOOKING, patch("/bookings/{id}", bookings.get(0).getId())
+                .header(USER_HEADER, owner.getId())
+                .param("approved", "true"));
+    }
+
+    @Test
+    void approveBookings() throws Exception {
+        List<BookingApprovalDto> approvals = new ArrayList<>();
+        for (BookingDto booking : bookings) {
+            approvals.add(new BookingApprovalDto(booking.getId(), true));
+        }
+        assertWithinBudget(APPROVE_BOOKINGS, patch("/bookings/batch")
+                .header(USER_HEADER, owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(approvals)));
+    }
+
+    @Test
+    void getBooking() throws Exception {
+        assertWithinBudget(GET_BOOKING, get("/bookings/{id}", bookings.get(0).getId())
+                .header(USER_HEADER, booker.getId()));
+    }
+
+    @Test
+    void getUserBookings() throws Exception {
+        assertWithinBudget(GET_USER_BOOKINGS, get("/bookings")
+                .header(USER_HEADER, booker.getId())
+                .param("state", "ALL")
+                .param("from", "0")
+                .param("size", "10"));
+    }
+
+    @Test
+    void getOwnerBookings() throws Exception {
+        assertWithinBudget(GET_OWNER_BOOKINGS, get("/bookings/owner")
+                .header(USER_HEADER, owner.getId())
+                .param("state", "ALL")
+                .param("from", "0")
+                .param("size", "10"));
+    }
+}
@@ -1,14 +1,20 @@
 package ru.practicum.shareit.booking;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.dto.BookingClaim;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
@@ -16,7 +22,6 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @DataJpaTest
 class BookingRepositoryTest {
@@ -26,6 +31,8 @@ class BookingRepositoryTest {
     private ItemRepository itemRepository;
     @Autowired
     private BookingRepository bookingRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     Booking bookingToSave;
     Booking lastBooking;
@@ -75,119 +82,255 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void findFirstByItemIdIsAndEndIsBeforeOrderByEndDesc_whenFound_thenReturnBooking() {
-        Optional<Booking> booking = bookingRepository
-                .findFirstByItemIdIsAndEndIsBeforeOrderByEndDesc(item1.getId(), LocalDateTime.now());
-        assertTrue(booking.isPresent());
+    void findAllOwnersBookings_whenInvoked_thenProjectItemAndBookerIntoDto() {
+        List<BookingDto> bookings = bookingRepository
+                .findAllOwnersBookings(owner.getId(), Long.MAX_VALUE, PageRequest.of(0, 10));
+
+        assertEquals(2, bookings.size());
+        BookingDto booking = bookings.get(1);
+        assertAll(
+                () -> assertEquals(lastBooking.getId(), booking.getId()),
+                () -> assertEquals(item1.getId(), booking.getItemId()),
+                () -> assertEquals(item1.getName(), booking.getItem().getName()),
+                () -> assertEquals(owner.getId(), booking.getItem().getOwnerId()),
+                () -> assertEquals(booker.getId(), booking.getBooker().getId()),
+                () -> assertEquals(BookingStatus.APPROVED, booking.getStatus())
+        );
     }
 
     @Test
-    void findFirstByItemIdIsAndEndIsBeforeOrderByEndDesc_whenNotFound_thenReturnEmptyOptional() {
-        Optional<Booking> booking = bookingRepository
-                .findFirstByItemIdIsAndEndIsBeforeOrderByEndDesc(item2.getId(), LocalDateTime.now());
-        assertTrue(booking.isEmpty());
+    void updateStatus_whenOwnerChangesStatus_thenUpdateOnce() {
+        assertEquals(0, bookingRepository.updateStatus(nextBooking.getId(), BookingStatus.APPROVED, booker.getId()));
+        assertEquals(1, bookingRepository.updateStatus(nextBooking.getId(), BookingStatus.APPROVED, owner.getId()));
+        assertEquals(0, bookingRepository.updateStatus(nextBooking.getId(), BookingStatus.APPROVED, owner.getId()));
+        assertEquals(0, bookingRepository.updateStatus(999L, BookingStatus.APPROVED, owner.getId()));
+
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findDtoById(nextBooking.getId()).orElseThrow().getStatus());
     }
 
     @Test
-    void findFirstByItemIdIsAndStartIsAfterOrderByStartAsc_whenFound_thenReturnBooking() {
-        Optional<Booking> booking = bookingRepository
-                .findFirstByItemIdIsAndStartIsAfterOrderByStartAsc(item1.getId(), LocalDateTime.now());
-        assertTrue(booking.isPresent());
+    void updateStatus_whenChanged_thenIncrementVersion() {
+        entityManager.flush();
+
+        bookingRepository.updateStatus(nextBooking.getId(), BookingStatus.APPROVED, owner.getId());
+        entityManager.clear();
+
+        assertEquals(1L, bookingRepository.findById(nextBooking.getId()).orElseThrow().getVersion());
     }
 
     @Test
-    void findFirstByItemIdIsAndStartIsAfterOrderByStartAsc_whenNotFound_thenReturnEmptyOptional() {
-        Optional<Booking> booking = bookingRepository
-                .findFirstByItemIdIsAndStartIsAfterOrderByStartAsc(item2.getId(), LocalDateTime.now());
-        assertTrue(booking.isEmpty());
+    void updateStatusIn_whenOwnerChangesStatus_thenUpdateOnlyOwnedBookingsWithOtherStatus() {
+        List<Long> ids = List.of(lastBooking.getId(), nextBooking.getId());
+
+        assertEquals(0, bookingRepository.updateStatusIn(ids, BookingStatus.REJECTED, booker.getId()));
+        assertEquals(2, bookingRepository.updateStatusIn(ids, BookingStatus.REJECTED, owner.getId()));
+        assertEquals(1, bookingRepository.updateStatusIn(ids.subList(0, 1), BookingStatus.APPROVED, owner.getId()));
+        assertEquals(0, bookingRepository.updateStatusIn(ids.subList(0, 1), BookingStatus.APPROVED, owner.getId()));
     }
 
     @Test
-    void findAllByBookerIdOrderByIdDesc_whenFound_thenReturnListOfBookings() {
-        List<Booking> actualBookings = bookingRepository
-                .findAllByBookerIdOrderByIdDesc(booker.getId(), PageRequest.of(0, 10));
+    void findAllOwnersBookingsByIdIn_whenInvoked_thenReturnOnlyBookingsOfOwnersItems() {
+        List<Long> ids = List.of(lastBooking.getId(), nextBooking.getId(), 999L);
 
-        assertEquals(2, actualBookings.size());
+        assertEquals(2, bookingRepository.findAllOwnersBookingsByIdIn(ids, owner.getId()).size());
+        assertTrue(bookingRepository.findAllOwnersBookingsByIdIn(ids, booker.getId()).isEmpty());
     }
 
     @Test
-    void findAllByBookerIdOrderByIdDesc_whenNotFound_thenReturnEmptyList() {
-        List<Booking> actualBookings = bookingRepository
-                .findAllByBookerIdOrderByIdDesc(owner.getId(), PageRequest.of(0, 10));
+    void claimStaleWaiting_whenWaitingBookingStarted_thenExpireOnlyIt() {
+        bookingToSave = new Booking(
+                LocalDateTime.now().minusHours(2),
+                LocalDateTime.now().plusDays(1),
+                BookingStatus.WAITING);
+        bookingToSave.setBooker(booker);
+        bookingToSave.setItem(item2);
+        Booking staleBooking = bookingRepository.save(bookingToSave);
+        entityManager.flush();
+
+        List<BookingClaim> claimed = bookingRepository.claimStaleWaiting(LocalDateTime.now(), PageRequest.of(0, 10));
+
+        assertEquals(1, claimed.size());
+        assertEquals(staleBooking.getId(), claimed.get(0).getId());
+        assertEquals(item2.getId(), claimed.get(0).getItemId());
+        assertEquals(1, bookingRepository.expireAllByIdIn(List.of(staleBooking.getId(), lastBooking.getId())));
+        entityManager.clear();
+        assertEquals(BookingStatus.EXPIRED, bookingRepository.findById(staleBooking.getId()).orElseThrow().getStatus());
+        assertEquals(0, bookingRepository.updateStatus(staleBooking.getId(), BookingStatus.APPROVED, owner.getId()));
+        assertTrue(bookingRepository.claimStaleWaiting(LocalDateTime.now(), PageRequest.of(0, 10)).isEmpty());
+    }
 
-        assertTrue(actualBookings.isEmpty());
+    @Test
+    void findDtoById_whenNotFound_thenReturnEmpty() {
+        assertTrue(bookingRepository.findDtoById(nextBooking.getId()).isPresent());
+        assertTrue(bookingRepository.findDtoById(999L).isEmpty());
+    }
+
+    @Test
+    void findById_whenLoaded_thenItemFetchedWithBooking() {
+        entityManager.flush();
+        entityManager.clear();
+
+        Booking booking = bookingRepository.findById(lastBooking.getId()).orElseThrow();
+
+        assertTrue(Hibernate.isInitialized(booking.getItem()));
+        assertEquals(item1.getName(), booking.getItem().getName());
+    }
+
+    @Test
+    void findLastAndNextBookings_whenFound_thenReturnLastAndNextBooking() {
+        List<ItemBookingView> bookings = bookingRepository
+                .findLastAndNextBookings(List.of(item1.getId(), item2.getId()), LocalDateTime.now());
+
+        assertEquals(2, bookings.size());
+        ItemBookingView last = bookings.stream().filter(ItemBookingView::getLast).findFirst().orElseThrow();
+        ItemBookingView next = bookings.stream().filter(b -> !b.getLast()).findFirst().orElseThrow();
+        assertAll(
+                () -> assertEquals(item1.getId(), last.getItemId()),
+                () -> assertEquals(lastBooking.getId(), last.getId()),
+                () -> assertEquals(booker.getId(), last.getBookerId()),
+                () -> assertNotNull(last.getStart()),
+                () -> assertNotNull(last.getEnd()),
+                () -> assertEquals(item1.getId(), next.getItemId()),
+                () -> assertEquals(nextBooking.getId(), next.getId())
+        );
+    }
+
+    @Test
+    void findLastAndNextBookings_whenManyBookings_thenReturnOnlyClosestOnes() {
+        bookingToSave = new Booking(
+                LocalDateTime.now().minusDays(5),
+                LocalDateTime.now().minusDays(4),
+                BookingStatus.APPROVED);
+        bookingToSave.setBooker(booker);
+        bookingToSave.setItem(item1);
+        bookingRepository.save(bookingToSave);
+        bookingToSave = new Booking(
+                LocalDateTime.now().plusDays(5),
+                LocalDateTime.now().plusDays(6),
+                BookingStatus.APPROVED);
+        bookingToSave.setBooker(booker);
+        bookingToSave.setItem(item1);
+        bookingRepository.save(bookingToSave);
+
+        List<ItemBookingView> bookings = bookingRepository
+                .findLastAndNextBookings(List.of(item1.getId()), LocalDateTime.now());
+
+        assertEquals(2, bookings.size());
+        assertTrue(bookings.stream().anyMatch(b -> b.getId().equals(lastBooking.getId())));
+        assertTrue(bookings.stream().anyMatch(b -> b.getId().equals(nextBooking.getId())));
+    }
+
+    @Test
+    void findLastAndNextBookings_whenNotFound_thenReturnEmptyList() {
+        List<ItemBookingView> bookings = bookingRepository
+                .findLastAndNextBookings(List.of(item2.getId()), LocalDateTime.now());
+
+        assertTrue(bookings.isEmpty());
     }
 
     @Test
-    void findAllByItemIdIn_whenFound_thenReturnListOfBookings() {
-        List<Booking> actualBookings = bookingRepository
-                .findAllByItemIdIn(List.of(item1.getId()));
+    void findAllByBookerIdAndIdLessThanOrderByIdDesc_whenFound_thenReturnListOfBookings() {
+        List<BookingDto> actualBookings = bookingRepository
+                .findAllByBookerIdAndIdLessThanOrderByIdDesc(booker.getId(), Long.MAX_VALUE, PageRequest.of(0, 10));
 
         assertEquals(2, actualBookings.size());
     }
 
     @Test
-    void findAllByItemIdIn_whenNotFound_thenReturnEmptyList() {
-        List<Booking> actualBookings = bookingRepository
-                .findAllByItemIdIn(List.of(item2.getId()));
+    void findAllByBookerIdAndIdLessThanOrderByIdDesc_whenNotFound_thenReturnEmptyList() {
+        List<BookingDto> actualBookings = bookingRepository
+                .findAllByBookerIdAndIdLessThanOrderByIdDesc(owner.getId(), Long.MAX_VALUE, PageRequest.of(0, 10));
 
         assertTrue(actualBookings.isEmpty());
     }
 
+    @Test
+    void findAllByBookerIdAndIdLessThanOrderByIdDesc_whenOffsetIsNotPageAligned_thenSkipExactlyFromRows() {
+        List<BookingDto> actualBookings = bookingRepository
+                .findAllByBookerIdAndIdLessThanOrderByIdDesc(booker.getId(), Long.MAX_VALUE, OffsetPageRequest.of(1L, 10));
+
+        assertEquals(1, actualBookings.size());
+        assertEquals(lastBooking.getId(), actualBookings.get(0).getId());
+    }
+
+    @Test
+    void findAllByBookerIdAndIdLessThanOrderByIdDesc_whenAfterIdGiven_thenReturnOnlyOlderBookings() {
+        List<BookingDto> actualBookings = bookingRepository.findAllByBookerIdAndIdLessThanOrderByIdDesc(
+                booker.getId(), nextBooking.getId(), PageRequest.of(0, 10));
+
+        assertEquals(1, actualBookings.size());
+        assertEquals(lastBooking.getId(), actualBookings.get(0).getId());
+    }
+
     @Test
     void findAllRejected_whenInvoked_thenReturnListOfBookings() {
         lastBooking.setStatus(BookingStatus.REJECTED);
         bookingRepository.save(lastBooking);
 
-        List<Booking> actualBookings = bookingRepository.findAllRejected(booker.getId());
+        List<BookingDto> actualBookings = bookingRepository.findAllRejected(booker.getId(), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(1, actualBookings.size());
     }
 
     @Test
     void findAllWaiting_whenInvoked_thenReturnListOfBookings() {
-        List<Booking> actualBookings = bookingRepository.findAllWaiting(booker.getId());
+        List<BookingDto> actualBookings = bookingRepository.findAllWaiting(booker.getId(), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(1, actualBookings.size());
     }
 
     @Test
     void findAllFutureBookings_whenInvoked_thenReturnListOfBookings() {
-        List<Booking> actualBookings = bookingRepository.findAllFutureBookings(booker.getId(), LocalDateTime.now());
+        List<BookingDto> actualBookings = bookingRepository.findAllFutureBookings(booker.getId(), LocalDateTime.now(), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(1, actualBookings.size());
     }
 
+    @Test
+    void findAllWaiting_whenOffsetIsOutOfRange_thenReturnEmptyList() {
+        List<BookingDto> actualBookings = bookingRepository.findAllWaiting(booker.getId(), Long.MAX_VALUE, OffsetPageRequest.of(1L, 10));
+        assertTrue(actualBookings.isEmpty());
+    }
+
     @Test
     void findAllPastBookings_whenInvoked_thenReturnListOfBookings() {
-        List<Booking> actualBookings = bookingRepository.findAllPastBookings(booker.getId(), LocalDateTime.now());
+        List<BookingDto> actualBookings = bookingRepository.findAllPastBookings(booker.getId(), LocalDateTime.now(), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(1, actualBookings.size());
     }
 
+    @Test
+    void existsByBookerIdAndItemIdAndEndIsBefore_whenFinishedBookingOfItem_thenReturnTrue() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertTrue(bookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(booker.getId(), item1.getId(), now));
+        assertFalse(bookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(booker.getId(), item2.getId(), now));
+        assertFalse(bookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(owner.getId(), item1.getId(), now));
+    }
+
     @Test
     void findAllCurrentBookings_whenInvoked_thenReturnListOfBookings() {
         nextBooking.setStart(LocalDateTime.now().minusDays(1));
         bookingRepository.save(nextBooking);
 
-        List<Booking> actualBookings = bookingRepository.findAllCurrentBookings(booker.getId(), LocalDateTime.now());
+        List<BookingDto> actualBookings = bookingRepository.findAllCurrentBookings(booker.getId(), LocalDateTime.now(), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(1, actualBookings.size());
     }
 
     @Test
     void findAllOwnersBookings_whenInvoked_thenReturnListOfBookings() {
-        List<Booking> actualBookings = bookingRepository
-                .findAllOwnersBookings(owner.getId(), PageRequest.of(0, 10));
+        List<BookingDto> actualBookings = bookingRepository
+                .findAllOwnersBookings(owner.getId(), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(2, actualBookings.size());
     }
 
     @Test
     void findAllOwnersPastBookings_whenInvoked_thenReturnListOfBookings() {
-        List<Booking> actualBookings = bookingRepository
-                .findAllOwnersPastBookings(owner.getId(), LocalDateTime.now());
+        List<BookingDto> actualBookings = bookingRepository
+                .findAllOwnersPastBookings(owner.getId(), LocalDateTime.now(), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(1, actualBookings.size());
     }
 
     @Test
     void findAllOwnersFutureBookings_whenInvoked_thenReturnListOfBookings() {
-        List<Booking> actualBookings = bookingRepository
-                .findAllOwnersFutureBookings(owner.getId(), LocalDateTime.now());
+        List<BookingDto> actualBookings = bookingRepository
+                .findAllOwnersFutureBookings(owner.getId(), LocalDateTime.now(), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(1, actualBookings.size());
     }
 
@@ -196,8 +339,8 @@ class BookingRepositoryTest {
         nextBooking.setStart(LocalDateTime.now().minusDays(1));
         bookingRepository.save(nextBooking);
 
-        List<Booking> actualBookings = bookingRepository
-                .findAllOwnersCurrentBookings(owner.getId(), LocalDateTime.now());
+        List<BookingDto> actualBookings = bookingRepository
+                .findAllOwnersCurrentBookings(owner.getId(), LocalDateTime.now(), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(1, actualBookings.size());
     }
 
@@ -206,15 +349,15 @@ class BookingRepositoryTest {
         lastBooking.setStatus(BookingStatus.REJECTED);
         bookingRepository.save(lastBooking);
 
-        List<Booking> actualBookings = bookingRepository
-                .findAllOwnersRejected(owner.getId());
+        List<BookingDto> actualBookings = bookingRepository
+                .findAllOwnersRejected(owner.getId(), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(1, actualBookings.size());
     }
 
     @Test
     void findAllOwnersWaiting_whenInvoked_thenReturnListOfBookings() {
-        List<Booking> actualBookings = bookingRepository
-                .findAllOwnersWaiting(owner.getId());
+        List<BookingDto> actualBookings = bookingRepository
+                .findAllOwnersWaiting(owner.getId(), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(1, actualBookings.size());
     }
 
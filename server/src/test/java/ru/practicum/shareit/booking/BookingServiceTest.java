@@ -3,10 +3,16 @@ package ru.practicum.shareit.booking;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.booking.availability.AvailabilityEngine;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
+import ru.practicum.shareit.booking.dto.BookingClaim;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.impl.BookingServiceImpl;
 import ru.practicum.shareit.booking.model.Booking;
@@ -14,17 +20,25 @@ import ru.practicum.shareit.exeption.BadRequestException;
 import ru.practicum.shareit.exeption.NotFoundException;
 import ru.practicum.shareit.exeption.UserVerificationException;
 import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +49,8 @@ class BookingServiceTest {
     private UserService userService;
     @Mock
     private ItemService itemService;
+    @Mock
+    private AvailabilityEngine availabilityEngine;
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -44,6 +60,8 @@ class BookingServiceTest {
     User booker;
     User owner;
     BookingDto bookingDto;
+    BookingDto bookingDtoToReturn;
+    ItemSnapshot itemSnapshot;
 
     @BeforeEach
     void setup() {
@@ -52,6 +70,7 @@ class BookingServiceTest {
         item = new Item("name1", "description1", true);
         item.setId(1L);
         item.setOwner(owner);
+        itemSnapshot = new ItemSnapshot(item.getId(), item.getName(), owner.getId(), true);
 
         bookingDto = new BookingDto(
                 1L,
@@ -71,22 +90,60 @@ class BookingServiceTest {
         bookingToReturn.setId(1L);
         bookingToReturn.setItem(item);
         bookingToReturn.setBooker(booker);
+
+        bookingDtoToReturn = BookingMapper.toBookingDto(bookingToSave);
     }
 
     @Test
     void createNewBooking_whenInvoked_thenReturnBooking() {
-        Mockito.when(itemService.checkIfItemExist(anyLong())).thenReturn(item);
+        Mockito.when(itemService.getItemSnapshot(anyLong())).thenReturn(itemSnapshot);
+        Mockito.when(itemService.getItemReference(anyLong())).thenReturn(item);
         Mockito.when(userService.checkIfUserExist(anyLong())).thenReturn(booker);
         Mockito.when(bookingRepository.save(any(Booking.class))).thenReturn(bookingToReturn);
 
         BookingDto savedBooking = bookingService.createNewBooking(bookingDto, 2L);
         assertEquals(1L, savedBooking.getId());
-        verify(bookingRepository, atMostOnce()).save(any(Booking.class));
+        assertEquals(itemSnapshot.getName(), savedBooking.getItem().getName());
+        InOrder order = inOrder(bookingRepository, availabilityEngine);
+        order.verify(bookingRepository).raiseBookingsVersions(List.of(item.getId()));
+        order.verify(bookingRepository).save(any(Booking.class));
+        order.verify(availabilityEngine).reserve(item.getId(), bookingToReturn.getId(), null, null);
+    }
+
+    @Test
+    void createNewBooking_whenDatesOverlap_thenThrowsBadRequestException() {
+        Mockito.when(itemService.getItemSnapshot(anyLong())).thenReturn(itemSnapshot);
+        Mockito.when(itemService.getItemReference(anyLong())).thenReturn(item);
+        Mockito.when(userService.checkIfUserExist(anyLong())).thenReturn(booker);
+        Mockito.when(bookingRepository.save(any(Booking.class))).thenReturn(bookingToSave);
+        doThrow(new BadRequestException("already booked"))
+                .when(availabilityEngine).reserve(anyLong(), anyLong(), any(), any());
+
+        assertThrows(
+                BadRequestException.class,
+                () -> bookingService.createNewBooking(bookingDto, 2L)
+        );
+    }
+
+    @Test
+    void createNewBooking_whenDatesOverlapInDatabase_thenThrowsBadRequestException() {
+        Mockito.when(itemService.getItemSnapshot(anyLong())).thenReturn(itemSnapshot);
+        Mockito.when(itemService.getItemReference(anyLong())).thenReturn(item);
+        Mockito.when(userService.checkIfUserExist(anyLong())).thenReturn(booker);
+        Mockito.when(bookingRepository.save(any(Booking.class)))
+                .thenThrow(new DataIntegrityViolationException(
+                        "could not execute statement", new SQLException("conflicting key value", "23P01")));
+
+        assertThrows(
+                BadRequestException.class,
+                () -> bookingService.createNewBooking(bookingDto, 2L)
+        );
+        verify(availabilityEngine, never()).reserve(anyLong(), anyLong(), any(), any());
     }
 
     @Test
     void createNewBooking_whenBookerIsOwner_thenThrowsUserVerificationException() {
-        Mockito.when(itemService.checkIfItemExist(anyLong())).thenReturn(item);
+        Mockito.when(itemService.getItemSnapshot(anyLong())).thenReturn(itemSnapshot);
         Mockito.when(userService.checkIfUserExist(anyLong())).thenReturn(owner);
 
         assertThrows(
@@ -98,8 +155,8 @@ class BookingServiceTest {
 
     @Test
     void createNewBooking_whenItemIsNotAvailable_thenThrowsBadRequestException() {
-        item.setAvailable(false);
-        Mockito.when(itemService.checkIfItemExist(anyLong())).thenReturn(item);
+        Mockito.when(itemService.getItemSnapshot(anyLong()))
+                .thenReturn(new ItemSnapshot(item.getId(), item.getName(), owner.getId(), false));
         Mockito.when(userService.checkIfUserExist(anyLong())).thenReturn(booker);
 
         assertThrows(
@@ -111,47 +168,240 @@ class BookingServiceTest {
 
     @Test
     void approveBooking_whenApproved_thenReturnApprovedBooking() {
-        Mockito.when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(bookingToSave));
-        Mockito.when(userService.checkIfUserExist(1L)).thenReturn(owner);
-        bookingToReturn.setStatus(BookingStatus.APPROVED);
-        Mockito.when(bookingRepository.save(bookingToSave)).thenReturn(bookingToReturn);
+        bookingToSave.setStatus(BookingStatus.APPROVED);
+        Mockito.when(bookingRepository.updateStatus(1L, BookingStatus.APPROVED, 1L)).thenReturn(1);
+        Mockito.when(bookingRepository.findDtoById(1L))
+                .thenReturn(Optional.of(BookingMapper.toBookingDto(bookingToSave)));
 
         BookingDto approvedBooking = bookingService.approveBooking(1L, 1L, true);
 
         assertEquals(BookingStatus.APPROVED, approvedBooking.getStatus());
-        verify(bookingRepository, atMostOnce()).save(any(Booking.class));
+        verify(bookingRepository).raiseBookingsVersions(List.of(item.getId()));
+        verify(availabilityEngine).reserve(item.getId(), bookingToSave.getId(), null, null);
+        verify(bookingRepository, never()).findById(anyLong());
+        verify(userService, never()).checkIfUserExist(anyLong());
     }
 
     @Test
     void approveBooking_whenRejected_thenReturnRejectedBooking() {
-        Mockito.when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(bookingToSave));
-        Mockito.when(userService.checkIfUserExist(1L)).thenReturn(owner);
-        bookingToReturn.setStatus(BookingStatus.REJECTED);
-        Mockito.when(bookingRepository.save(bookingToSave)).thenReturn(bookingToReturn);
+        bookingToSave.setStatus(BookingStatus.REJECTED);
+        Mockito.when(bookingRepository.updateStatus(1L, BookingStatus.REJECTED, 1L)).thenReturn(1);
+        Mockito.when(bookingRepository.findDtoById(1L))
+                .thenReturn(Optional.of(BookingMapper.toBookingDto(bookingToSave)));
 
         BookingDto approvedBooking = bookingService.approveBooking(1L, 1L, false);
 
         assertEquals(BookingStatus.REJECTED, approvedBooking.getStatus());
-        verify(bookingRepository, atMostOnce()).save(any(Booking.class));
+        verify(availabilityEngine).release(item.getId(), bookingToSave.getId());
+        verify(availabilityEngine, never()).reserve(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void approveBooking_whenApprovedBookingsOverlapInDatabase_thenThrowsBadRequestException() {
+        Mockito.when(bookingRepository.updateStatus(1L, BookingStatus.APPROVED, 1L))
+                .thenThrow(new DataIntegrityViolationException(
+                        "could not execute statement", new SQLException("conflicting key value", "23P01")));
+
+        assertThrows(
+                BadRequestException.class,
+                () -> bookingService.approveBooking(1L, 1L, true)
+        );
+    }
+
+    @Test
+    void approveBooking_whenOtherIntegrityViolation_thenRethrow() {
+        Mockito.when(bookingRepository.updateStatus(1L, BookingStatus.APPROVED, 1L))
+                .thenThrow(new DataIntegrityViolationException(
+                        "could not execute statement", new SQLException("null value", "23502")));
+
+        assertThrows(
+                DataIntegrityViolationException.class,
+                () -> bookingService.approveBooking(1L, 1L, true)
+        );
     }
 
     @Test
     void approveBooking_whenAlreadyRejectedOrApproved_thenThrowsBadRequestException() {
         bookingToSave.setStatus(BookingStatus.REJECTED);
-        Mockito.when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(bookingToSave));
+        Mockito.when(bookingRepository.updateStatus(1L, BookingStatus.REJECTED, 1L)).thenReturn(0);
+        Mockito.when(bookingRepository.findById(1L)).thenReturn(Optional.of(bookingToSave));
         Mockito.when(userService.checkIfUserExist(1L)).thenReturn(owner);
 
         assertThrows(
                 BadRequestException.class,
                 () -> bookingService.approveBooking(1L, 1L, false)
         );
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(itemService).checkIfUserIsOwner(item, owner.getId());
+        verify(availabilityEngine, never()).release(anyLong(), anyLong());
+    }
+
+    @Test
+    void approveBooking_whenBookingNotFound_thenThrowsNotFoundException() {
+        Mockito.when(bookingRepository.updateStatus(1L, BookingStatus.APPROVED, 1L)).thenReturn(0);
+        Mockito.when(bookingRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(
+                NotFoundException.class,
+                () -> bookingService.approveBooking(1L, 1L, true)
+        );
+    }
+
+    @Test
+    void approveBooking_whenUserIsNotOwner_thenThrowsNotFoundException() {
+        Mockito.when(bookingRepository.updateStatus(1L, BookingStatus.APPROVED, 2L)).thenReturn(0);
+        Mockito.when(bookingRepository.findById(1L)).thenReturn(Optional.of(bookingToSave));
+        Mockito.when(userService.checkIfUserExist(2L)).thenReturn(booker);
+        doThrow(new NotFoundException("item can be updated only by owner"))
+                .when(itemService).checkIfUserIsOwner(item, booker.getId());
+
+        assertThrows(
+                NotFoundException.class,
+                () -> bookingService.approveBooking(2L, 1L, true)
+        );
+    }
+
+    @Test
+    void approveBookings_whenOwnerDecides_thenUpdateOncePerStatusBeforeReview() {
+        BookingDto waiting = BookingMapper.toBookingDto(bookingToSave);
+        bookingToReturn.setStatus(BookingStatus.WAITING);
+        bookingToReturn.setId(2L);
+        BookingDto otherWaiting = BookingMapper.toBookingDto(bookingToReturn);
+        Mockito.when(bookingRepository.findAllOwnersBookingsByIdIn(Set.of(1L, 2L), 1L))
+                .thenReturn(List.of(otherWaiting, waiting));
+        Mockito.when(bookingRepository.updateStatusIn(List.of(1L), BookingStatus.APPROVED, 1L)).thenReturn(1);
+        Mockito.when(bookingRepository.updateStatusIn(List.of(2L), BookingStatus.REJECTED, 1L)).thenReturn(1);
+
+        List<BookingApprovalResultDto> results = bookingService.approveBookings(1L,
+                List.of(new BookingApprovalDto(1L, true), new BookingApprovalDto(2L, false)));
+
+        assertEquals(List.of(1L, 2L),
+                results.stream().map(BookingApprovalResultDto::getBookingId).collect(Collectors.toList()));
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        assertEquals(BookingStatus.REJECTED, results.get(1).getBooking().getStatus());
+        assertNull(results.get(0).getError());
+        InOrder order = inOrder(bookingRepository, availabilityEngine);
+        order.verify(bookingRepository).updateStatusIn(List.of(2L), BookingStatus.REJECTED, 1L);
+        order.verify(bookingRepository).updateStatusIn(List.of(1L), BookingStatus.APPROVED, 1L);
+        order.verify(bookingRepository).raiseBookingsVersions(Set.of(item.getId()));
+        order.verify(availabilityEngine).review(List.of(waiting), List.of(otherWaiting));
+    }
+
+    @Test
+    void approveBookings_whenStatusAlreadySet_thenReturnBookingUnchanged() {
+        bookingToSave.setStatus(BookingStatus.APPROVED);
+        Mockito.when(bookingRepository.findAllOwnersBookingsByIdIn(Set.of(1L), 1L))
+                .thenReturn(List.of(BookingMapper.toBookingDto(bookingToSave)));
+
+        List<BookingApprovalResultDto> results = bookingService.approveBookings(1L,
+                List.of(new BookingApprovalDto(1L, true)));
+
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        verify(bookingRepository, never()).updateStatusIn(any(), any(), anyLong());
+        verifyNoInteractions(availabilityEngine);
+    }
+
+    @Test
+    void approveBookings_whenBookingOfAnotherOwner_thenSkipItAndApplyTheRest() {
+        Mockito.when(bookingRepository.findAllOwnersBookingsByIdIn(Set.of(1L, 2L), 1L))
+                .thenReturn(List.of(BookingMapper.toBookingDto(bookingToSave)));
+        Mockito.when(bookingRepository.updateStatusIn(List.of(1L), BookingStatus.APPROVED, 1L)).thenReturn(1);
+
+        List<BookingApprovalResultDto> results = bookingService.approveBookings(1L,
+                List.of(new BookingApprovalDto(1L, true), new BookingApprovalDto(2L, true)));
+
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        assertEquals(2L, results.get(1).getBookingId());
+        assertNull(results.get(1).getBooking());
+        assertTrue(results.get(1).getError().contains("not found"));
+        verify(bookingRepository).updateStatusIn(List.of(1L), BookingStatus.APPROVED, 1L);
+    }
+
+    @Test
+    void approveBookings_whenBookingListedTwice_thenThrowsBadRequestException() {
+        assertThrows(
+                BadRequestException.class,
+                () -> bookingService.approveBookings(1L,
+                        List.of(new BookingApprovalDto(1L, true), new BookingApprovalDto(1L, false)))
+        );
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void approveBookings_whenChangedConcurrently_thenThrowsBadRequestExceptionBeforeReview() {
+        Mockito.when(bookingRepository.findAllOwnersBookingsByIdIn(Set.of(1L), 1L))
+                .thenReturn(List.of(BookingMapper.toBookingDto(bookingToSave)));
+        Mockito.when(bookingRepository.updateStatusIn(List.of(1L), BookingStatus.APPROVED, 1L)).thenReturn(0);
+
+        assertThrows(
+                BadRequestException.class,
+                () -> bookingService.approveBookings(1L, List.of(new BookingApprovalDto(1L, true)))
+        );
+        verifyNoInteractions(availabilityEngine);
+    }
+
+    @Test
+    void approveBookings_whenEmpty_thenReturnEmptyList() {
+        assertTrue(bookingService.approveBookings(1L, List.of()).isEmpty());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void approveBookings_whenBookingExpired_thenSkipIt() {
+        bookingToSave.setStatus(BookingStatus.EXPIRED);
+        Mockito.when(bookingRepository.findAllOwnersBookingsByIdIn(Set.of(1L), 1L))
+                .thenReturn(List.of(BookingMapper.toBookingDto(bookingToSave)));
+
+        List<BookingApprovalResultDto> results = bookingService.approveBookings(1L,
+                List.of(new BookingApprovalDto(1L, true)));
+
+        assertTrue(results.get(0).getError().contains("expired"));
+        verify(bookingRepository, never()).updateStatusIn(any(), any(), anyLong());
+        verifyNoInteractions(availabilityEngine);
+    }
+
+    @Test
+    void expireWaitingBookings_whenClaimed_thenExpireAndEvictTheirItems() {
+        LocalDateTime now = LocalDateTime.now();
+        BookingClaim first = claim(1L, 10L);
+        BookingClaim second = claim(2L, 10L);
+        Mockito.when(bookingRepository.claimStaleWaiting(eq(now), argThat(p -> p.getPageSize() == 2)))
+                .thenReturn(List.of(first, second));
+        Mockito.when(bookingRepository.expireAllByIdIn(List.of(1L, 2L))).thenReturn(2);
+
+        assertEquals(2, bookingService.expireWaitingBookings(now, 2));
+        verify(bookingRepository).raiseBookingsVersions(Set.of(10L));
+        verify(availabilityEngine).evict(Set.of(10L));
+    }
+
+    @Test
+    void expireWaitingBookings_whenNothingClaimed_thenSkipUpdate() {
+        LocalDateTime now = LocalDateTime.now();
+        Mockito.when(bookingRepository.claimStaleWaiting(eq(now), argThat(p -> p.getPageSize() == 2)))
+                .thenReturn(List.of());
+
+        assertEquals(0, bookingService.expireWaitingBookings(now, 2));
+        verify(bookingRepository, never()).expireAllByIdIn(any());
+        verifyNoInteractions(availabilityEngine);
+    }
+
+    private static BookingClaim claim(Long id, Long itemId) {
+        return new BookingClaim() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+        };
     }
 
     @Test
     void getBooking_whenFound_thenReturnBookingDto() {
         Mockito.when(userService.checkIfUserExist(1L)).thenReturn(owner);
-        Mockito.when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(bookingToSave));
+        Mockito.when(bookingRepository.findDtoById(anyLong())).thenReturn(Optional.of(bookingDtoToReturn));
 
         BookingDto actualBookingDto = bookingService.getBooking(1L, 1L);
 
@@ -161,7 +411,7 @@ class BookingServiceTest {
     @Test
     void getBooking_whenNotFound_thenThrowsNotFoundException() {
         Mockito.when(userService.checkIfUserExist(1L)).thenReturn(owner);
-        Mockito.when(bookingRepository.findById(anyLong())).thenReturn(Optional.empty());
+        Mockito.when(bookingRepository.findDtoById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(
                 NotFoundException.class,
@@ -174,33 +424,33 @@ class BookingServiceTest {
         List<BookingDto> actualDto;
         Mockito.when(userService.checkIfUserExist(2L)).thenReturn(booker);
 
-        Mockito.when(bookingRepository.findAllByBookerIdOrderByIdDesc(any(), any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllByBookerIdAndIdLessThanOrderByIdDesc(any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getUserBookings(2L, "ALL", 1L, 1);
         assertEquals(1, actualDto.size());
 
-        Mockito.when(bookingRepository.findAllPastBookings(any(), any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllPastBookings(any(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getUserBookings(2L, "PAST", 1L, 1);
         assertEquals(1, actualDto.size());
 
-        Mockito.when(bookingRepository.findAllFutureBookings(any(), any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllFutureBookings(any(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getUserBookings(2L, "FUTURE", 1L, 1);
         assertEquals(1, actualDto.size());
 
-        Mockito.when(bookingRepository.findAllCurrentBookings(any(), any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllCurrentBookings(any(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getUserBookings(2L, "CURRENT", 1L, 1);
         assertEquals(1, actualDto.size());
 
-        Mockito.when(bookingRepository.findAllWaiting(any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllWaiting(any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getUserBookings(2L, "WAITING", 1L, 1);
         assertEquals(1, actualDto.size());
 
-        Mockito.when(bookingRepository.findAllRejected(any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllRejected(any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getUserBookings(2L, "REJECTED", 1L, 1);
         assertEquals(1, actualDto.size());
     }
@@ -210,37 +460,72 @@ class BookingServiceTest {
         List<BookingDto> actualDto;
         Mockito.when(userService.checkIfUserExist(1L)).thenReturn(owner);
 
-        Mockito.when(bookingRepository.findAllOwnersBookings(any(), any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllOwnersBookings(any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getOwnerBookings(1L, "ALL", 1L, 1);
         assertEquals(1, actualDto.size());
 
-        Mockito.when(bookingRepository.findAllOwnersPastBookings(any(), any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllOwnersPastBookings(any(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getOwnerBookings(1L, "PAST", 1L, 1);
         assertEquals(1, actualDto.size());
 
-        Mockito.when(bookingRepository.findAllOwnersFutureBookings(any(), any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllOwnersFutureBookings(any(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getOwnerBookings(1L, "FUTURE", 1L, 1);
         assertEquals(1, actualDto.size());
 
-        Mockito.when(bookingRepository.findAllOwnersCurrentBookings(any(), any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllOwnersCurrentBookings(any(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getOwnerBookings(1L, "CURRENT", 1L, 1);
         assertEquals(1, actualDto.size());
 
-        Mockito.when(bookingRepository.findAllOwnersWaiting(any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllOwnersWaiting(any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getOwnerBookings(1L, "WAITING", 1L, 1);
         assertEquals(1, actualDto.size());
 
-        Mockito.when(bookingRepository.findAllOwnersRejected(any()))
-                .thenReturn(List.of(bookingToReturn));
+        Mockito.when(bookingRepository.findAllOwnersRejected(any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
         actualDto = bookingService.getOwnerBookings(1L, "REJECTED", 1L, 1);
         assertEquals(1, actualDto.size());
     }
 
+    @Test
+    void getUserBookings_whenFromIsNotPageAligned_thenPassExactOffsetToRepository() {
+        Mockito.when(userService.checkIfUserExist(2L)).thenReturn(booker);
+        Mockito.when(bookingRepository.findAllPastBookings(any(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
+
+        bookingService.getUserBookings(2L, "PAST", 3L, 2);
+
+        verify(bookingRepository).findAllPastBookings(eq(2L), any(), eq(Long.MAX_VALUE), eq(OffsetPageRequest.of(3L, 2)));
+    }
+
+    @Test
+    void getUserBookingsAfter_whenInvoked_thenSeekBelowCursorId() {
+        Mockito.when(userService.checkIfUserExist(2L)).thenReturn(booker);
+        Mockito.when(bookingRepository.findAllWaiting(any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
+
+        List<BookingDto> actualDto = bookingService.getUserBookingsAfter(2L, "WAITING", PageCursor.encode(5L), 2);
+
+        assertEquals(1, actualDto.size());
+        verify(bookingRepository).findAllWaiting(eq(2L), eq(5L), eq(OffsetPageRequest.of(0L, 2)));
+    }
+
+    @Test
+    void getOwnerBookingsAfter_whenInvoked_thenSeekBelowCursorId() {
+        Mockito.when(userService.checkIfUserExist(1L)).thenReturn(owner);
+        Mockito.when(bookingRepository.findAllOwnersBookings(any(), any(), any()))
+                .thenReturn(List.of(bookingDtoToReturn));
+
+        List<BookingDto> actualDto = bookingService.getOwnerBookingsAfter(1L, "ALL", PageCursor.encode(5L), 2);
+
+        assertEquals(1, actualDto.size());
+        verify(bookingRepository).findAllOwnersBookings(eq(1L), eq(5L), eq(OffsetPageRequest.of(0L, 2)));
+    }
+
     @Test
     void checkIfBookingExist_WhenNotFound_thenThrowsNotFoundException() {
         Mockito.when(bookingRepository.findById(anyLong())).thenReturn(Optional.empty());
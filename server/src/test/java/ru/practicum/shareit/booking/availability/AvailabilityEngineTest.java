@@ -0,0 +1,340 @@
+package ru.practicum.shareit.booking.availability;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.AvailabilityDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.exeption.BadRequestException;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.practicum.shareit.booking.BookingStatus.WAITING;
+
+@SpringBootTest
+class AvailabilityEngineTest {
+    private static final int BOOKERS = 8;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityEngine availabilityEngine;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    UserDto owner;
+    UserDto booker;
+    ItemDto item;
+    LocalDateTime start;
+
+    @BeforeEach
+    void setup() {
+        owner = userService.addNewUser(new UserDto(null, "owner", System.nanoTime() + "owner@email"));
+        booker = userService.addNewUser(new UserDto(null, "booker", System.nanoTime() + "booker@email"));
+        item = itemService.addNewItem(new ItemDto(null, "drill", "drill", true, owner.getId(),
+                null, null, null, null));
+        start = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    @Test
+    void createNewBooking_whenDatesOverlap_thenThrowsBadRequestException() {
+        book(start, start.plusDays(2));
+
+        assertThrows(BadRequestException.class, () -> book(start.plusDays(1), start.plusDays(3)));
+        assertThrows(BadRequestException.class, () -> book(start.minusDays(1), start.plusDays(5)));
+    }
+
+    @Test
+    void createNewBooking_whenDatesOnlyTouch_thenCreateBooking() {
+        book(start, start.plusDays(2));
+
+        assertNotNull(book(start.plusDays(2), start.plusDays(3)).getId());
+        assertNotNull(book(start.minusDays(1), start).getId());
+    }
+
+    @Test
+    void approveBooking_whenRejected_thenDatesAreFreeUntilApprovedAgain() {
+        BookingDto rejected = book(start, start.plusDays(2));
+        bookingService.approveBooking(owner.getId(), rejected.getId(), false);
+
+        BookingDto booking = book(start, start.plusDays(2));
+
+        assertThrows(BadRequestException.class,
+                () -> bookingService.approveBooking(owner.getId(), rejected.getId(), true));
+        bookingService.approveBooking(owner.getId(), booking.getId(), false);
+        bookingService.approveBooking(owner.getId(), rejected.getId(), true);
+        assertThrows(BadRequestException.class, () -> book(start, start.plusDays(1)));
+    }
+
+    @Test
+    void createNewBooking_whenTreesEvicted_thenReloadBookingsFromDatabase() {
+        book(start, start.plusDays(2));
+
+        availabilityEngine.evictAll();
+
+        assertThrows(BadRequestException.class, () -> book(start.plusDays(1), start.plusDays(3)));
+    }
+
+    @Test
+    void createNewBooking_whenBookingRejectedByAnotherInstance_thenCheckOverlapAgainstDatabase() {
+        BookingDto booking = book(start, start.plusDays(2));
+
+        rejectBehindEngine(booking);
+
+        assertNotNull(book(start.plusDays(1), start.plusDays(3)).getId());
+        assertThrows(BadRequestException.class, () -> book(start.plusDays(2), start.plusDays(4)));
+    }
+
+    @Test
+    void approveBookings_whenBookingRejectedByAnotherInstance_thenCheckOverlapAgainstDatabase() {
+        BookingDto rejected = book(start, start.plusDays(2));
+        bookingService.approveBooking(owner.getId(), rejected.getId(), false);
+        BookingDto booking = book(start, start.plusDays(2));
+
+        rejectBehindEngine(booking);
+
+        List<BookingApprovalResultDto> results = bookingService.approveBookings(owner.getId(),
+                List.of(new BookingApprovalDto(rejected.getId(), true)));
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        assertThrows(BadRequestException.class, () -> book(start.plusDays(1), start.plusDays(3)));
+    }
+
+    @Test
+    void createNewBooking_whenBookedConcurrently_thenOnlyOneBookingCreated() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(BOOKERS);
+        CountDownLatch ready = new CountDownLatch(BOOKERS);
+        List<Future<BookingDto>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < BOOKERS; i++) {
+                Callable<BookingDto> task = () -> {
+                    ready.countDown();
+                    ready.await();
+                    return book(start, start.plusDays(1));
+                };
+                results.add(executor.submit(task));
+            }
+            int created = 0;
+            for (Future<BookingDto> result : results) {
+                try {
+                    result.get();
+                    created++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(BadRequestException.class, e.getCause());
+                }
+            }
+            assertEquals(1, created);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void approveBookings_whenApprovedBookingsOverlapEachOther_thenThrowsBadRequestException() {
+        BookingDto first = book(start, start.plusDays(2));
+        bookingService.approveBooking(owner.getId(), first.getId(), false);
+        BookingDto second = book(start.plusDays(1), start.plusDays(3));
+        bookingService.approveBooking(owner.getId(), second.getId(), false);
+        List<BookingApprovalDto> approvals = List.of(new BookingApprovalDto(first.getId(), true),
+                new BookingApprovalDto(second.getId(), true));
+
+        assertThrows(BadRequestException.class, () -> bookingService.approveBookings(owner.getId(), approvals));
+        availabilityEngine.evictAll();
+        assertThrows(BadRequestException.class, () -> bookingService.approveBookings(owner.getId(), approvals));
+
+        assertEquals(BookingStatus.REJECTED, bookingService.getBooking(owner.getId(), first.getId()).getStatus());
+        assertEquals(BookingStatus.REJECTED, bookingService.getBooking(owner.getId(), second.getId()).getStatus());
+    }
+
+    @Test
+    void approveBookings_whenOverlappingBookingRejectedInSameBatch_thenApprove() {
+        BookingDto rejected = book(start, start.plusDays(2));
+        bookingService.approveBooking(owner.getId(), rejected.getId(), false);
+        BookingDto waiting = book(start.plusDays(1), start.plusDays(3));
+
+        List<BookingApprovalResultDto> results = bookingService.approveBookings(owner.getId(), List.of(
+                new BookingApprovalDto(rejected.getId(), true), new BookingApprovalDto(waiting.getId(), false)));
+
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        assertEquals(BookingStatus.REJECTED, results.get(1).getBooking().getStatus());
+        assertThrows(BadRequestException.class, () -> book(start.plusDays(1), start.plusDays(3)));
+    }
+
+    @Test
+    void approveBookings_whenBatchesListItemsInOppositeOrder_thenNoneTimesOut() throws Exception {
+        ItemDto other = itemService.addNewItem(new ItemDto(null, "saw", "saw", true, owner.getId(),
+                null, null, null, null));
+        List<Long> forward = List.of(book(item, start, start.plusDays(1)).getId(),
+                book(other, start, start.plusDays(1)).getId());
+        List<Long> backward = List.of(book(other, start.plusDays(2), start.plusDays(3)).getId(),
+                book(item, start.plusDays(2), start.plusDays(3)).getId());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (List<Long> ids : List.of(forward, backward)) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        boolean approved = i % 2 == 0;
+                        bookingService.approveBookings(owner.getId(), List.of(
+                                new BookingApprovalDto(ids.get(0), approved),
+                                new BookingApprovalDto(ids.get(1), approved)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void approveBookings_whenBookingOfAnotherOwnerListed_thenApplyTheRest() {
+        BookingDto waiting = book(start, start.plusDays(1));
+
+        List<BookingApprovalResultDto> results = bookingService.approveBookings(owner.getId(), List.of(
+                new BookingApprovalDto(waiting.getId(), true), new BookingApprovalDto(waiting.getId() + 100, true)));
+
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        assertNotNull(results.get(1).getError());
+        assertEquals(BookingStatus.APPROVED, bookingService.getBooking(owner.getId(), waiting.getId()).getStatus());
+    }
+
+    @Test
+    void approveBookings_whenSingleApprovalRacesBatch_thenNoneTimesOut() throws Exception {
+        BookingDto single = book(start, start.plusDays(1));
+        BookingDto other = book(start.plusDays(2), start.plusDays(3));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch ready = new CountDownLatch(2);
+        try {
+            Future<?> singles = executor.submit(() -> {
+                ready.countDown();
+                ready.await();
+                for (int i = 0; i < 50; i++) {
+                    boolean approved = i % 2 == 0;
+                    decide(() -> bookingService.approveBooking(owner.getId(), single.getId(), approved));
+                }
+                return null;
+            });
+            Future<?> batches = executor.submit(() -> {
+                ready.countDown();
+                ready.await();
+                for (int i = 0; i < 50; i++) {
+                    boolean approved = i % 2 != 0;
+                    decide(() -> bookingService.approveBookings(owner.getId(), List.of(
+                            new BookingApprovalDto(single.getId(), approved),
+                            new BookingApprovalDto(other.getId(), approved))));
+                }
+                return null;
+            });
+            singles.get();
+            batches.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getAvailability_whenBookingsInWindow_thenReturnMergedBusyAndFreeSlots() {
+        book(start, start.plusDays(1));
+        book(start.plusDays(1), start.plusDays(2));
+        BookingDto rejected = book(start.plusDays(4), start.plusDays(5));
+        bookingService.approveBooking(owner.getId(), rejected.getId(), false);
+        book(start.plusDays(6), start.plusDays(8));
+
+        AvailabilityDto availability = itemService.getAvailability(item.getId(), booker.getId(),
+                start.minusDays(1), start.plusDays(7));
+
+        assertSlots(availability.getBusy(), start, start.plusDays(2), start.plusDays(6), start.plusDays(7));
+        assertSlots(availability.getFree(), start.minusDays(1), start, start.plusDays(2), start.plusDays(6));
+    }
+
+    @Test
+    void getAvailability_whenItemBookedAfterwards_thenCachedCalendarIsReplaced() {
+        AvailabilityDto before = itemService.getAvailability(item.getId(), booker.getId(), start, start.plusDays(3));
+        assertSame(before, itemService.getAvailability(item.getId(), booker.getId(), start, start.plusDays(3)));
+        assertTrue(before.getBusy().isEmpty());
+
+        book(start, start.plusDays(1));
+
+        AvailabilityDto after = itemService.getAvailability(item.getId(), booker.getId(), start, start.plusDays(3));
+        assertSlots(after.getBusy(), start, start.plusDays(1));
+        assertSlots(after.getFree(), start.plusDays(1), start.plusDays(3));
+    }
+
+    @Test
+    void getAvailability_whenBookingExpiredBySweep_thenCachedCalendarIsReplaced() {
+        book(start, start.plusDays(1));
+        AvailabilityDto before = itemService.getAvailability(item.getId(), booker.getId(), start, start.plusDays(3));
+        assertSlots(before.getBusy(), start, start.plusDays(1));
+        long version = availabilityEngine.bookingsVersion(item.getId());
+
+        bookingService.expireWaitingBookings(start.plusHours(1), 100);
+
+        assertEquals(version + 1, availabilityEngine.bookingsVersion(item.getId()));
+        AvailabilityDto after = itemService.getAvailability(item.getId(), booker.getId(), start, start.plusDays(3));
+        assertTrue(after.getBusy().isEmpty());
+        assertSlots(after.getFree(), start, start.plusDays(3));
+    }
+
+    private static void assertSlots(List<TimeSlotDto> slots, LocalDateTime... bounds) {
+        assertEquals(bounds.length / 2, slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            assertEquals(bounds[i * 2], slots.get(i).getStart());
+            assertEquals(bounds[i * 2 + 1], slots.get(i).getEnd());
+        }
+    }
+
+    /**
+     * Runs a decision that may lose a race on the booking row, but never on the item lock.
+     */
+    private static void decide(Runnable decision) {
+        try {
+            decision.run();
+        } catch (BadRequestException e) {
+            assertFalse(e.getMessage().contains("being booked"), e.getMessage());
+        }
+    }
+
+    /**
+     * Rejects the booking like another instance sharing the database would, leaving the tree of this one stale.
+     */
+    private void rejectBehindEngine(BookingDto booking) {
+        jdbcTemplate.update("update bookings set status = 'REJECTED' where id = ?", booking.getId());
+    }
+
+    private BookingDto book(LocalDateTime start, LocalDateTime end) {
+        return book(item, start, end);
+    }
+
+    private BookingDto book(ItemDto item, LocalDateTime start, LocalDateTime end) {
+        return bookingService.createNewBooking(new BookingDto(null, start, end, item.getId(), null, null, WAITING),
+                booker.getId());
+    }
+}
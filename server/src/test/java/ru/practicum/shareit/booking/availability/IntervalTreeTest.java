@@ -0,0 +1,122 @@
+package ru.practicum.shareit.booking.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+    private static final LocalDateTime T0 = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Test
+    void findOverlap_whenRangesIntersect_thenReturnOverlappingId() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(1L, at(0), at(10));
+        tree.add(2L, at(20), at(30));
+
+        assertEquals(1L, tree.findOverlap(at(5), at(6)));
+        assertEquals(2L, tree.findOverlap(at(15), at(25)));
+        assertEquals(1L, tree.findOverlap(at(-5), at(1)));
+    }
+
+    @Test
+    void findOverlap_whenRangesOnlyTouch_thenReturnNull() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(1L, at(0), at(10));
+        tree.add(2L, at(20), at(30));
+
+        assertNull(tree.findOverlap(at(10), at(20)));
+        assertNull(tree.findOverlap(at(-10), at(0)));
+        assertNull(tree.findOverlap(at(30), at(40)));
+    }
+
+    @Test
+    void findOverlap_whenLongIntervalStartsEarly_thenFoundThroughSubtreeMaxEnd() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(1L, at(0), at(100));
+        for (long i = 2; i < 20; i++) {
+            tree.add(i, at(i * 2), at(i * 2 + 1));
+        }
+
+        assertEquals(1L, tree.findOverlap(at(90), at(95)));
+    }
+
+    @Test
+    void remove_whenPresent_thenRangeIsFree() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(1L, at(0), at(10));
+        tree.add(2L, at(20), at(30));
+        tree.add(3L, at(40), at(50));
+
+        tree.remove(2L);
+        tree.remove(9L);
+
+        assertEquals(2, tree.size());
+        assertNull(tree.findOverlap(at(20), at(30)));
+        assertEquals(3L, tree.findOverlap(at(45), at(46)));
+    }
+
+    @Test
+    void add_whenIdPresent_thenReplaceInterval() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(1L, at(0), at(10));
+
+        tree.add(1L, at(20), at(30));
+
+        assertEquals(1, tree.size());
+        assertNull(tree.findOverlap(at(0), at(10)));
+        assertEquals(1L, tree.findOverlap(at(25), at(26)));
+    }
+
+    @Test
+    void findOverlap_whenRandomIntervals_thenMatchLinearScan() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<long[]> intervals = new ArrayList<>();
+        for (long id = 0; id < 500; id++) {
+            long start = random.nextInt(10_000);
+            long[] interval = {id, start, start + 1 + random.nextInt(50)};
+            intervals.add(interval);
+            tree.add(id, at(interval[1]), at(interval[2]));
+        }
+        for (int i = 0; i < 250; i++) {
+            long[] removed = intervals.remove(random.nextInt(intervals.size()));
+            tree.remove(removed[0]);
+        }
+        assertEquals(intervals.size(), tree.size());
+
+        for (int i = 0; i < 1000; i++) {
+            long start = random.nextInt(10_000);
+            long end = start + 1 + random.nextInt(50);
+            boolean expected = intervals.stream().anyMatch(v -> v[1] < end && start < v[2]);
+            Long overlap = tree.findOverlap(at(start), at(end));
+            assertEquals(expected, overlap != null);
+            if (overlap != null) {
+                long[] found = intervals.stream().filter(v -> v[0] == overlap).findFirst().orElseThrow();
+                assertTrue(found[1] < end && start < found[2]);
+            }
+        }
+    }
+
+    @Test
+    void findOverlap_whenOverlapsIgnored_thenReturnAnotherOverlapOrNull() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(1L, at(0), at(10));
+        tree.add(2L, at(5), at(15));
+        tree.add(3L, at(20), at(30));
+
+        assertEquals(2L, tree.findOverlap(at(8), at(12), Set.of(1L)));
+        assertEquals(1L, tree.findOverlap(at(8), at(12), Set.of(2L)));
+        assertNull(tree.findOverlap(at(8), at(12), Set.of(1L, 2L)));
+        assertEquals(3L, tree.findOverlap(at(8), at(25), Set.of(1L, 2L)));
+    }
+
+    private static LocalDateTime at(long minutes) {
+        return T0.plusMinutes(minutes);
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.booking.expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.BookingService;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingExpirySweeperTest {
+    private static final int BATCH_SIZE = 2;
+    private static final int MAX_BATCHES = 3;
+
+    @Mock
+    private BookingService bookingService;
+
+    MeterRegistry meterRegistry;
+    BookingExpirySweeper sweeper;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new BookingExpirySweeper(bookingService, meterRegistry, BATCH_SIZE, MAX_BATCHES);
+    }
+
+    @Test
+    void sweep_whenBatchComesBackShort_thenStopAndRecordMetrics() {
+        Mockito.when(bookingService.expireWaitingBookings(any(LocalDateTime.class), eq(BATCH_SIZE)))
+                .thenReturn(2, 1);
+
+        assertEquals(3, sweeper.sweep());
+        verify(bookingService, times(2)).expireWaitingBookings(any(LocalDateTime.class), eq(BATCH_SIZE));
+        assertEquals(3.0, meterRegistry.get(BookingExpirySweeper.EXPIRED).counter().count());
+        assertEquals(2, meterRegistry.get(BookingExpirySweeper.BATCH).timer().count());
+    }
+
+    @Test
+    void sweep_whenEveryBatchIsFull_thenStopAfterMaxBatches() {
+        Mockito.when(bookingService.expireWaitingBookings(any(LocalDateTime.class), eq(BATCH_SIZE)))
+                .thenReturn(BATCH_SIZE);
+
+        assertEquals(BATCH_SIZE * MAX_BATCHES, sweeper.sweep());
+        verify(bookingService, times(MAX_BATCHES)).expireWaitingBookings(any(LocalDateTime.class), eq(BATCH_SIZE));
+    }
+}
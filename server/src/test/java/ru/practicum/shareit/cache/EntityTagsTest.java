@@ -0,0 +1,225 @@
+package ru.practicum.shareit.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.QueryBudgetTest;
+import ru.practicum.shareit.QueryCountingDataSource;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static ru.practicum.shareit.booking.BookingStatus.WAITING;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryBudgetTest.QueryCountingConfig.class)
+class EntityTagsTest {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper mapper;
+
+    UserDto user;
+
+    @BeforeEach
+    void setup() throws Exception {
+        user = addUser();
+    }
+
+    @Test
+    void findUser_whenIfNoneMatchesCurrentTag_thenReturnNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        assertTrue(eTag.startsWith("\""), "ETag should be strong");
+
+        mockMvc.perform(get("/users/{id}", user.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void findUser_whenUserChanged_thenReturnNewBodyAndTag() throws Exception {
+        String eTag = mockMvc.perform(get("/users/{id}", user.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(patch("/users/{id}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new UserDto(null, "new name", null))))
+                .andExpect(status().isOk());
+
+        String newTag = mockMvc.perform(get("/users/{id}", user.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("new name"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, newTag);
+    }
+
+    @Test
+    void findUser_whenNotModified_thenOnlyVersionIsRead() throws Exception {
+        String eTag = tagOf(get("/users/{id}", user.getId()));
+
+        List<String> statements = notModifiedStatements(get("/users/{id}", user.getId()), eTag);
+        assertEquals(1, statements.size(), () -> String.join(System.lineSeparator(), statements));
+    }
+
+    @Test
+    void findUser_whenUserMissing_thenNotFound() throws Exception {
+        mockMvc.perform(get("/users/{id}", Long.MAX_VALUE)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"any\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getItem_whenNotModified_thenOnlyStampIsRead() throws Exception {
+        ItemDto item = addItem(null);
+        String eTag = tagOf(get("/items/{id}", item.getId()).header(USER_HEADER, user.getId()));
+
+        List<String> statements = notModifiedStatements(
+                get("/items/{id}", item.getId()).header(USER_HEADER, user.getId()), eTag);
+        assertEquals(1, statements.size(), () -> String.join(System.lineSeparator(), statements));
+    }
+
+    @Test
+    void getItem_whenBooked_thenOnlyOwnerTagChanges() throws Exception {
+        ItemDto item = addItem(null);
+        UserDto booker = addUser();
+        String ownerTag = tagOf(get("/items/{id}", item.getId()).header(USER_HEADER, user.getId()));
+        String bookerTag = tagOf(get("/items/{id}", item.getId()).header(USER_HEADER, booker.getId()));
+        assertNotEquals(ownerTag, bookerTag);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        mockMvc.perform(post("/bookings")
+                        .header(USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new BookingDto(null, start, start.plusDays(1),
+                                item.getId(), null, null, WAITING))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/items/{id}", item.getId())
+                        .header(USER_HEADER, user.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, ownerTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextBooking.bookerId").value(booker.getId()));
+        mockMvc.perform(get("/items/{id}", item.getId())
+                        .header(USER_HEADER, booker.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, bookerTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getItem_whenItemChanged_thenReturnNewBody() throws Exception {
+        ItemDto item = addItem(null);
+        String eTag = tagOf(get("/items/{id}", item.getId()).header(USER_HEADER, user.getId()));
+
+        mockMvc.perform(patch("/items/{id}", item.getId())
+                        .header(USER_HEADER, user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new ItemDto(null, "new name", null, null, null,
+                                null, null, null, null))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/items/{id}", item.getId())
+                        .header(USER_HEADER, user.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("new name"));
+    }
+
+    @Test
+    void getRequestById_whenItemAdded_thenReturnNewBody() throws Exception {
+        String json = mockMvc.perform(post("/requests")
+                        .header(USER_HEADER, user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new ItemRequestDto(null, "need a saw", null, null, null))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        ItemRequestDto request = mapper.readValue(json, ItemRequestDto.class);
+        MockHttpServletRequestBuilder getRequest = get("/requests/{id}", request.getId())
+                .header(USER_HEADER, user.getId());
+        String eTag = tagOf(getRequest);
+        List<String> statements = notModifiedStatements(getRequest, eTag);
+        assertTrue(statements.size() <= 2, () -> String.join(System.lineSeparator(), statements));
+
+        addItem(request.getId());
+
+        mockMvc.perform(get("/requests/{id}", request.getId())
+                        .header(USER_HEADER, user.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].requestId").value(request.getId()));
+    }
+
+    @Test
+    void getBookings_whenNotPolledEndpoint_thenNoTag() throws Exception {
+        mockMvc.perform(get("/bookings")
+                        .param("state", "ALL")
+                        .param("from", "0")
+                        .param("size", "10")
+                        .header(USER_HEADER, user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    private String tagOf(MockHttpServletRequestBuilder request) throws Exception {
+        String eTag = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        return eTag;
+    }
+
+    private List<String> notModifiedStatements(MockHttpServletRequestBuilder request, String eTag) throws Exception {
+        QueryCountingDataSource.start();
+        List<String> statements;
+        try {
+            mockMvc.perform(request.header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified());
+        } finally {
+            statements = QueryCountingDataSource.stop();
+        }
+        return statements;
+    }
+
+    private UserDto addUser() throws Exception {
+        String json = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new UserDto(null, "user", System.nanoTime() + "@email"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(json, UserDto.class);
+    }
+
+    private ItemDto addItem(Long requestId) throws Exception {
+        String json = mockMvc.perform(post("/items")
+                        .header(USER_HEADER, user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new ItemDto(null, "saw", "saw", true, null,
+                                requestId, null, null, null))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(json, ItemDto.class);
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.availability.AvailabilityEngine;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.UserServiceImpl;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true"
+})
+@Import(UserServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private UserService userService;
+    @MockBean
+    private ItemSearchEngine itemSearchEngine;
+    @MockBean
+    private AvailabilityEngine availabilityEngine;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    User owner;
+    Item item;
+
+    @BeforeEach
+    void setup() {
+        owner = userRepository.save(new User(null, "owner", "owner@email"));
+        Item itemToSave = new Item("drill", "drill", true);
+        itemToSave.setOwner(owner);
+        item = itemRepository.save(itemToSave);
+        statistics().clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        itemRepository.deleteAll();
+        itemRequestRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void findById_whenEntityWasRead_thenNextReadServedFromCache() {
+        itemRepository.findById(item.getId());
+        userRepository.findById(owner.getId());
+        statistics().clear();
+
+        assertEquals("drill", itemRepository.findById(item.getId()).orElseThrow().getName());
+        assertEquals("owner", userRepository.findById(owner.getId()).orElseThrow().getName());
+
+        assertEquals(0, statistics().getPrepareStatementCount());
+        assertEquals(0, statistics().getSecondLevelCacheMissCount());
+    }
+
+    @Test
+    void findById_whenEntityUpdated_thenCacheHoldsNewState() {
+        owner.setName("new name");
+        userRepository.save(owner);
+        statistics().clear();
+
+        assertEquals("new name", userRepository.findById(owner.getId()).orElseThrow().getName());
+        assertEquals(1, statistics().getSecondLevelCacheHitCount());
+        assertEquals(0, statistics().getSecondLevelCacheMissCount());
+    }
+
+    @Test
+    void raiseBookingsVersions_whenItemCached_thenItStaysCached() {
+        itemRepository.findById(item.getId());
+        statistics().clear();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> bookingRepository.raiseBookingsVersions(List.of(item.getId())));
+
+        assertEquals(1L, bookingRepository.findBookingsVersion(item.getId()));
+        assertEquals("drill", itemRepository.findById(item.getId()).orElseThrow().getName());
+        assertEquals(1, statistics().getSecondLevelCacheHitCount());
+        assertEquals(0, statistics().getSecondLevelCacheMissCount());
+    }
+
+    @Test
+    void deleteUser_whenItemsAndRequestsCascaded_thenTheyAreNotServedFromCache() {
+        ItemRequest request = new ItemRequest("drill");
+        request.setRequestor(owner);
+        request.setCreated(LocalDateTime.now());
+        request = itemRequestRepository.save(request);
+        itemRepository.findById(item.getId());
+        itemRequestRepository.findById(request.getId());
+
+        userService.deleteUser(owner.getId());
+
+        assertTrue(itemRepository.findById(item.getId()).isEmpty());
+        assertTrue(itemRequestRepository.findById(request.getId()).isEmpty());
+    }
+
+    @Test
+    void findAll_whenCalledTwice_thenSecondCallServedFromQueryCache() {
+        userRepository.findAll();
+        userRepository.findAll();
+
+        assertEquals(1, statistics().getQueryCacheHitCount());
+        assertEquals(1, statistics().getQueryCacheMissCount());
+    }
+
+    @Test
+    void findAll_whenUserAdded_thenQueryCacheInvalidated() {
+        userRepository.findAll();
+        userRepository.save(new User(null, "user", "user@email"));
+
+        assertEquals(2, userRepository.findAll().size());
+        assertEquals(0, statistics().getQueryCacheHitCount());
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SnapshotCacheTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    UserDto owner;
+    ItemDto item;
+
+    @BeforeEach
+    void setup() {
+        owner = userService.addNewUser(new UserDto(null, "owner", "cache-owner" + System.nanoTime() + "@email"));
+        item = itemService.addNewItem(new ItemDto(null, "drill", "drill", true, owner.getId(),
+                null, null, null, null));
+    }
+
+    @Test
+    void findUser_whenSnapshotCached_thenNoCacheMiss() {
+        double hits = cacheGets("hit");
+        double misses = cacheGets("miss");
+
+        userService.findUser(owner.getId());
+        userService.findUser(owner.getId());
+
+        assertEquals(hits + 2, cacheGets("hit"));
+        assertEquals(misses, cacheGets("miss"));
+    }
+
+    @Test
+    void updateUser_whenCommitted_thenEvictSnapshot() {
+        userService.checkIfUserExist(owner.getId());
+        assertNotNull(users().get(owner.getId()));
+
+        userService.updateUser(new UserDto(owner.getId(), "new name", null));
+
+        assertNull(users().get(owner.getId()));
+        assertEquals("new name", userService.findUser(owner.getId()).getName());
+    }
+
+    @Test
+    void updateItem_whenCommitted_thenEvictSnapshot() {
+        itemService.getItemSnapshot(item.getId());
+        assertNotNull(items().get(item.getId()));
+
+        itemService.updateItem(new ItemDto(item.getId(), null, null, false, owner.getId(),
+                null, null, null, null));
+
+        assertNull(items().get(item.getId()));
+        assertFalse(itemService.getItemSnapshot(item.getId()).getAvailable());
+    }
+
+    @Test
+    void deleteUser_whenCommitted_thenEvictUserAndItems() {
+        itemService.getItemSnapshot(item.getId());
+        userService.findUser(owner.getId());
+
+        userService.deleteUser(owner.getId());
+
+        assertNull(users().get(owner.getId()));
+        assertNull(items().get(item.getId()));
+    }
+
+    private Cache users() {
+        return cacheManager.getCache(CacheConfig.USERS);
+    }
+
+    private Cache items() {
+        return cacheManager.getCache(CacheConfig.ITEMS);
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", CacheConfig.USERS)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
@@ -1,10 +1,12 @@
 package ru.practicum.shareit.comment;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
@@ -24,6 +26,8 @@ class CommentRepositoryTest {
     private ItemRepository itemRepository;
     @Autowired
     private CommentRepository commentRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     User author;
     User owner;
@@ -69,6 +73,18 @@ class CommentRepositoryTest {
         assertEquals(1, comments.size());
     }
 
+    @Test
+    void findAllByItemIdIs_whenLoaded_thenAuthorFetchedWithComments() {
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Comment> comments = commentRepository.findAllByItemIdIs(item1.getId());
+
+        assertTrue(Hibernate.isInitialized(comments.get(0).getAuthor()));
+        assertFalse(Hibernate.isInitialized(comments.get(0).getItem()));
+        assertEquals(author.getName(), comments.get(0).getAuthor().getName());
+    }
+
     @Test
     void findAllByItemIdIs_whenNotFound_thenReturnEmptyList() {
         List<Comment> comments = commentRepository.findAllByItemIdIs(item2.getId());
@@ -0,0 +1,192 @@
+package ru.practicum.shareit.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.cache.CacheConfig;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The replica is a separate empty database, so a row is visible only when the read went to the primary.
+ * Its schema is created once up front, because the script drops the tables and would race with open connections
+ * if every new pooled connection ran it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary",
+        "shareit.datasource.replica.url=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+        "shareit.datasource.replica.stickiness=1m"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingDataSourceTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper mapper;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private CacheManager cacheManager;
+
+    UserDto user;
+
+    @BeforeAll
+    static void createReplicaSchema() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(
+                REPLICA_URL + ";INIT=RUNSCRIPT FROM 'classpath:schema.sql'", "test", "test")) {
+            assertFalse(connection.isClosed());
+        }
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        user = addUser();
+    }
+
+    @Test
+    void dataSource_whenReplicaConfigured_thenRoutingBehindLazyProxy() {
+        LazyConnectionDataSourceProxy proxy = assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+        assertInstanceOf(ReplicaRoutingDataSource.class, proxy.getTargetDataSource());
+    }
+
+    @Test
+    void findUser_whenJustCreated_thenReadFromPrimary() throws Exception {
+        mockMvc.perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(user.getId()));
+        mockMvc.perform(get("/users/{id}", user.getId())
+                        .header(CurrentUserFilter.USER_HEADER, "not a number"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void findUser_whenReadFromLaggingReplica_thenSnapshotNotCached() throws Exception {
+        long id = addUnstickyUser("old name", "new name");
+
+        mockMvc.perform(get("/users/{id}", id)
+                        .header(CurrentUserFilter.USER_HEADER, Long.MAX_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("old name"));
+
+        assertNull(cacheManager.getCache(CacheConfig.USERS).get(id));
+        mockMvc.perform(get("/users/{id}", id)
+                        .header(CurrentUserFilter.USER_HEADER, id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("old name"));
+    }
+
+    @Test
+    void updateUser_whenNoUserHeader_thenUserReadsFromPrimary() throws Exception {
+        long id = addUnstickyUser("old name", "old name");
+
+        mockMvc.perform(patch("/users/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new UserDto(null, "new name", null))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("new name"));
+        mockMvc.perform(get("/users")
+                        .header(CurrentUserFilter.USER_HEADER, id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == %s)].name", id).value("new name"));
+    }
+
+    @Test
+    void getUsers_whenUserWroteRecently_thenReadFromPrimary() throws Exception {
+        mockMvc.perform(patch("/users/{id}", user.getId())
+                        .header(CurrentUserFilter.USER_HEADER, user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new UserDto(null, "new name", null))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users")
+                        .header(CurrentUserFilter.USER_HEADER, user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == %s)].name", user.getId()).value("new name"));
+    }
+
+    @Test
+    void getUsers_whenAnotherUserWrote_thenReadFromReplica() throws Exception {
+        mockMvc.perform(patch("/users/{id}", user.getId())
+                        .header(CurrentUserFilter.USER_HEADER, user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new UserDto(null, "new name", null))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users")
+                        .header(CurrentUserFilter.USER_HEADER, Long.MAX_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void getAvailability_whenReaderNeverWrote_thenReadFromPrimary() throws Exception {
+        String json = mockMvc.perform(post("/items")
+                        .header(CurrentUserFilter.USER_HEADER, user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new ItemDto(null, "drill", "drill", true, null,
+                                null, null, null, null))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        ItemDto item = mapper.readValue(json, ItemDto.class);
+        UserDto reader = addUser();
+
+        mockMvc.perform(get("/items/{id}/availability", item.getId())
+                        .header(CurrentUserFilter.USER_HEADER, reader.getId())
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-10T00:00:00"))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Inserts the same user into both databases, bypassing the service so that the user is not sticky.
+     */
+    private long addUnstickyUser(String replicaName, String primaryName) throws SQLException {
+        long id = user.getId() + 1_000_000;
+        String email = System.nanoTime() + "@email";
+        new JdbcTemplate(dataSource).update("insert into users (id, name, email) values (?, ?, ?)",
+                id, primaryName, email);
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "test", "test");
+             PreparedStatement insert = connection.prepareStatement(
+                     "insert into users (id, name, email) values (?, ?, ?)")) {
+            insert.setLong(1, id);
+            insert.setString(2, replicaName);
+            insert.setString(3, email);
+            insert.executeUpdate();
+        }
+        return id;
+    }
+
+    private UserDto addUser() throws Exception {
+        String json = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new UserDto(null, "user", System.nanoTime() + "@email"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(json, UserDto.class);
+    }
+}
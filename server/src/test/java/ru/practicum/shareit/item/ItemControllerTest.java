@@ -8,10 +8,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.AvailabilityDto;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.exeption.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -102,6 +106,19 @@ class ItemControllerTest {
         verify(itemService, times(1)).updateItem(any());
     }
 
+    @Test
+    void updateItem_whenChangedConcurrently_thenReturnStatusConflict() throws Exception {
+        when(itemService.updateItem(any())).thenThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L));
+
+        mockMvc.perform(patch("/items/{Id}", 1L)
+                        .content(mapper.writeValueAsString(itemDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void getItem_whenInvoked_thenReturnStatusOkAndItemJson() throws Exception {
         when(itemService.getItem(1L, 1L)).thenReturn(itemDto);
@@ -116,6 +133,28 @@ class ItemControllerTest {
         verify(itemService, times(1)).getItem(1L, 1L);
     }
 
+    @Test
+    void getAvailability_whenInvoked_thenReturnStatusOkAndAvailabilityJson() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(3);
+        AvailabilityDto availability = new AvailabilityDto(1L, from, to,
+                List.of(new TimeSlotDto(from.plusDays(1), from.plusDays(2))),
+                List.of(new TimeSlotDto(from, from.plusDays(1)), new TimeSlotDto(from.plusDays(2), to)));
+        when(itemService.getAvailability(1L, 1L, from, to)).thenReturn(availability);
+
+        mockMvc.perform(get("/items/{id}/availability", 1L)
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-04T00:00:00")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1L), Long.class))
+                .andExpect(jsonPath("$.busy.length()", is(1)))
+                .andExpect(jsonPath("$.busy[0].start", is("2030-01-02T00:00:00")))
+                .andExpect(jsonPath("$.free.length()", is(2)))
+                .andExpect(jsonPath("$.free[1].end", is("2030-01-04T00:00:00")));
+        verify(itemService, times(1)).getAvailability(1L, 1L, from, to);
+    }
+
     @Test
     void getItemsByOwner_whenInvoked_thenReturnStatusOkAndListOfItemsJson() throws Exception {
         when(itemService.getItemsByOwner(1L, 0L, 10)).thenReturn(List.of(itemDto));
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import ru.practicum.shareit.QueryBudgetTest;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static ru.practicum.shareit.booking.BookingStatus.WAITING;
+
+class ItemQueryBudgetTest extends QueryBudgetTest {
+    private static final int ADD_ITEM = 2;
+    private static final int UPDATE_ITEM = 2;
+    private static final int GET_ITEM = 4;
+    private static final int GET_AVAILABILITY = 4;
+    private static final int GET_ITEMS_BY_OWNER = 3;
+    private static final int SEARCH = 1;
+    private static final int ADD_COMMENT = 3;
+    private static final int ITEMS = 3;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+
+    UserDto owner;
+    UserDto booker;
+    List<ItemDto> items = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        owner = userService.addNewUser(new UserDto(null, "owner", unique("owner@email")));
+        booker = userService.addNewUser(new UserDto(null, "booker", unique("booker@email")));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ITEMS; i++) {
+            ItemDto item = itemService.addNewItem(new ItemDto(null, "budget drill", "drill", true, owner.getId(),
+                    null, null, null, null));
+            items.add(item);
+            UserDto author = userService.addNewUser(new UserDto(null, "author", unique("author@email")));
+            bookingService.createNewBooking(new BookingDto(null, now.minusDays(2), now.minusDays(1),
+                    item.getId(), null, null, WAITING), author.getId());
+            bookingService.createNewBooking(new BookingDto(null, now.plusDays(1), now.plusDays(2),
+                    item.getId(), null, null, WAITING), author.getId());
+            itemService.addComment(item.getId(), author.getId(), new CommentDto(null, "comment", null, now));
+        }
+        bookingService.createNewBooking(new BookingDto(null, now.minusDays(4), now.minusDays(3),
+                items.get(0).getId(), null, null, WAITING), booker.getId());
+    }
+
+    @Test
+    void addNewItem() throws Exception {
+        assertWithinBudget(ADD_ITEM, post("/items")
+                .header(USER_HEADER, owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new ItemDto(null, "saw", "saw", true, null,
+                        null, null, null, null))));
+    }
+
+    @Test
+    void updateItem() throws Exception {
+        assertWithinBudget(UPDATE_ITEM, patch("/items/{id}", items.get(0).getId())
+                .header(USER_HEADER, owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new ItemDto(null, "new name", null, null, null,
+                        null, null, null, null))));
+    }
+
+    @Test
+    void getItem() throws Exception {
+        assertWithinBudget(GET_ITEM, get("/items/{id}", items.get(0).getId())
+                .header(USER_HEADER, owner.getId()));
+    }
+
+    @Test
+    void getAvailability() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        assertWithinBudget(GET_AVAILABILITY, get("/items/{id}/availability", items.get(0).getId())
+                .header(USER_HEADER, booker.getId())
+                .param("from", now.minusDays(7).toString())
+                .param("to", now.plusDays(7).toString()));
+    }
+
+    @Test
+    void getItemsByOwner() throws Exception {
+        assertWithinBudget(GET_ITEMS_BY_OWNER, get("/items")
+                .header(USER_HEADER, owner.getId())
+                .param("from", "0")
+                .param("size", "10"));
+    }
+
+    @Test
+    void search() throws Exception {
+        assertWithinBudget(SEARCH, get("/items/search")
+                .header(USER_HEADER, booker.getId())
+                .param("text", "budget")
+                .param("from", "0")
+                .param("size", "10"));
+    }
+
+    @Test
+    void addComment() throws Exception {
+        assertWithinBudget(ADD_COMMENT, post("/items/{id}/comment", items.get(0).getId())
+                .header(USER_HEADER, booker.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new CommentDto(null, "nice", null, null))));
+    }
+}
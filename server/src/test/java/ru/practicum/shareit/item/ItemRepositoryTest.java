@@ -5,8 +5,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.IndexedItem;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.UserRepository;
@@ -25,6 +29,8 @@ class ItemRepositoryTest {
     private ItemRequestRepository itemRequestRepository;
     @Autowired
     private ItemRepository itemRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     User user1;
     User user2;
@@ -67,52 +73,117 @@ class ItemRepositoryTest {
 
 
     @Test
-    void findAllByOwnerIdIsOrderById_whenInvoked_thenReturnListOfItems() {
-        List<Item> actualItems = itemRepository
-                .findAllByOwnerIdIsOrderById(user1.getId(), PageRequest.of(0, 10));
+    void saveAndFlush_whenItemChangedMeanwhile_thenThrowsOptimisticLockingFailure() {
+        entityManager.flush();
+        entityManager.clear();
+        Item stale = itemRepository.findById(item1.getId()).orElseThrow();
+        entityManager.clear();
+        Item current = itemRepository.findById(item1.getId()).orElseThrow();
+        entityManager.clear();
+
+        current.setName("new name");
+        assertEquals(1L, itemRepository.saveAndFlush(current).getVersion());
+        entityManager.clear();
+
+        stale.setDescription("new description");
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> itemRepository.saveAndFlush(stale));
+    }
+
+    @Test
+    void findAllByOwnerIdIsAndIdGreaterThanOrderById_whenInvoked_thenReturnListOfItems() {
+        List<ItemDto> actualItems = itemRepository
+                .findAllByOwnerIdIsAndIdGreaterThanOrderById(user1.getId(), 0L, PageRequest.of(0, 10));
         assertEquals(1, actualItems.size());
     }
 
     @Test
-    void findAllByOwnerIdIsOrderById_whenUserDontHaveItems_thenReturnEmptyList() {
-        List<Item> actualItems = itemRepository
-                .findAllByOwnerIdIsOrderById(user3.getId(), PageRequest.of(0, 10));
+    void findAllByOwnerIdIsAndIdGreaterThanOrderById_whenUserDontHaveItems_thenReturnEmptyList() {
+        List<ItemDto> actualItems = itemRepository
+                .findAllByOwnerIdIsAndIdGreaterThanOrderById(user3.getId(), 0L, PageRequest.of(0, 10));
         assertTrue(actualItems.isEmpty());
     }
 
     @Test
     void search_whenFind_thenReturnListOfItems() {
-        List<Item> actualItems = itemRepository.search("name", PageRequest.of(0, 10));
+        List<ItemDto> actualItems = itemRepository.search("name", 0L, PageRequest.of(0, 10));
         assertEquals(1, actualItems.size());
 
         //item is not available
-        actualItems = itemRepository.search("name2", PageRequest.of(0, 10));
+        actualItems = itemRepository.search("name2", 0L, PageRequest.of(0, 10));
+        assertTrue(actualItems.isEmpty());
+    }
+
+    @Test
+    void search_whenAfterIdGiven_thenReturnOnlyItemsWithGreaterId() {
+        List<ItemDto> actualItems = itemRepository.search("name", item1.getId(), PageRequest.of(0, 10));
         assertTrue(actualItems.isEmpty());
+
+        actualItems = itemRepository.search("name", item1.getId() - 1, PageRequest.of(0, 10));
+        assertEquals(1, actualItems.size());
+    }
+
+    @Test
+    void findIndexedItems_whenInvoked_thenReturnOnlyAvailableItems() {
+        List<IndexedItem> actualItems = itemRepository.findIndexedItems(0L, PageRequest.of(0, 10));
+
+        assertEquals(1, actualItems.size());
+        assertAll(
+                () -> assertEquals(item1.getId(), actualItems.get(0).getId()),
+                () -> assertEquals(item1.getName(), actualItems.get(0).getName()),
+                () -> assertEquals(user1.getId(), actualItems.get(0).getOwnerId()),
+                () -> assertEquals(request1.getId(), actualItems.get(0).getRequestId())
+        );
+        assertTrue(itemRepository.findIndexedItems(item1.getId(), PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void findIndexedItems_whenItemHasNoRequest_thenReturnItemWithoutRequestId() {
+        itemToSave = new Item("name3", "description3", true);
+        itemToSave.setOwner(userRepository.save(new User(null, "user 4", "user4@email")));
+        Item item3 = itemRepository.save(itemToSave);
+
+        List<IndexedItem> actualItems = itemRepository.findIndexedItems(item1.getId(), PageRequest.of(0, 10));
+
+        assertEquals(1, actualItems.size());
+        assertEquals(item3.getId(), actualItems.get(0).getId());
+        assertNull(actualItems.get(0).getRequestId());
+    }
+
+    @Test
+    void findDtoById_whenFound_thenReturnItemDto() {
+        ItemDto actualItem = itemRepository.findDtoById(item1.getId()).orElseThrow();
+
+        assertAll(
+                () -> assertEquals(item1.getName(), actualItem.getName()),
+                () -> assertEquals(user1.getId(), actualItem.getOwner()),
+                () -> assertEquals(request1.getId(), actualItem.getRequestId())
+        );
+        assertNull(itemRepository.findDtoById(item2.getId()).orElseThrow().getRequestId());
     }
 
     @Test
     void findAllByRequestIdIn_whenFound_thenReturnListOfItems() {
-        List<Item> actualItems = itemRepository.findAllByRequestIdIn(List.of(request1.getId()));
+        List<ItemDto> actualItems = itemRepository.findAllByRequestIdIn(List.of(request1.getId()));
 
         assertEquals(1, actualItems.size());
     }
 
     @Test
     void findAllByRequestIdIn_whenNotFound_thenEmptyList() {
-        List<Item> actualItems = itemRepository.findAllByRequestIdIn(List.of(999L));
+        List<ItemDto> actualItems = itemRepository.findAllByRequestIdIn(List.of(999L));
         assertTrue(actualItems.isEmpty());
     }
 
     @Test
     void findAllByRequestId_whenFound_thenReturnListOfItems() {
-        List<Item> actualItems = itemRepository.findAllByRequestId(request1.getId());
+        List<ItemDto> actualItems = itemRepository.findAllByRequestId(request1.getId());
 
         assertEquals(1, actualItems.size());
     }
 
     @Test
     void findAllByRequestId_whenNotFound_thenEmptyList() {
-        List<Item> actualItems = itemRepository.findAllByRequestId(999L);
+        List<ItemDto> actualItems = itemRepository.findAllByRequestId(999L);
         assertTrue(actualItems.isEmpty());
     }
 }
\ No newline at end of file
@@ -9,6 +9,9 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.availability.AvailabilityEngine;
+import ru.practicum.shareit.booking.dto.AvailabilityDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.comment.CommentRepository;
 import ru.practicum.shareit.comment.dto.CommentDto;
@@ -16,7 +19,11 @@ import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.exeption.BadRequestException;
 import ru.practicum.shareit.exeption.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.UserService;
@@ -43,6 +50,10 @@ class ItemServiceTest {
     private CommentRepository commentRepository;
     @Mock
     private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+    @Mock
+    private AvailabilityEngine availabilityEngine;
     @InjectMocks
     private ItemServiceImpl itemService;
 
@@ -56,6 +67,7 @@ class ItemServiceTest {
     Booking lastBooking;
     Booking nextBooking;
     ItemRequest request;
+    ItemSnapshot itemSnapshot;
 
     @BeforeEach
     void setup() {
@@ -71,6 +83,7 @@ class ItemServiceTest {
         itemToReturn = new Item("name1", "description1", true);
         itemToReturn.setId(1L);
         itemToReturn.setOwner(owner);
+        itemSnapshot = new ItemSnapshot(1L, "name1", owner.getId(), true);
 
         itemDto = new ItemDto();
         itemDto.setName("name1");
@@ -123,6 +136,7 @@ class ItemServiceTest {
                 () -> assertNull(savedItemDto.getComments())
         );
         verify(itemRepository, atMostOnce()).saveAndFlush(any(Item.class));
+        verify(itemSearchEngine).index(savedItemDto);
     }
 
     @Test
@@ -228,11 +242,12 @@ class ItemServiceTest {
                 () -> assertFalse(itemDtoNotAvailable.getAvailable())
         );
         verify(itemRepository).saveAndFlush(any(Item.class));
+        verify(itemSearchEngine).index(updatedItemDto);
     }
 
     @Test
     void getItem_WhenUserNotOwner_ThenReturnItemDto() {
-        Mockito.when(itemRepository.findById(1L)).thenReturn(Optional.of(itemToReturn));
+        Mockito.when(itemRepository.findDtoById(1L)).thenReturn(Optional.of(ItemMapper.toItemDto(itemToReturn)));
         Mockito.when(commentRepository.findAllByItemIdIs(1L)).thenReturn(List.of(comment));
 
         ItemDto actualDto = itemService.getItem(1L, 2L);
@@ -243,20 +258,16 @@ class ItemServiceTest {
                 () -> assertNull(actualDto.getNextBooking()),
                 () -> assertNull(actualDto.getLastBooking())
         );
-        verify(itemRepository).findById(1L);
+        verify(itemRepository).findDtoById(1L);
     }
 
     @Test
     void getItem_WhenUserOwner_ThenReturnItemDto() {
         Long itemId = 1L;
-        Mockito.when(itemRepository.findById(itemId)).thenReturn(Optional.of(itemToReturn));
+        Mockito.when(itemRepository.findDtoById(itemId)).thenReturn(Optional.of(ItemMapper.toItemDto(itemToReturn)));
         Mockito.when(commentRepository.findAllByItemIdIs(itemId)).thenReturn(List.of(comment));
-        Mockito.when(bookingRepository
-                        .findFirstByItemIdIsAndEndIsBeforeOrderByEndDesc(anyLong(), any(LocalDateTime.class)))
-                .thenReturn(Optional.of(lastBooking));
-        Mockito.when(bookingRepository
-                        .findFirstByItemIdIsAndStartIsAfterOrderByStartAsc(anyLong(), any(LocalDateTime.class)))
-                .thenReturn(Optional.of(nextBooking));
+        Mockito.when(bookingRepository.findLastAndNextBookings(eq(List.of(itemId)), any(LocalDateTime.class)))
+                .thenReturn(List.of(toView(lastBooking, true), toView(nextBooking, false)));
 
         ItemDto actualDto = itemService.getItem(1L, 1L);
 
@@ -266,45 +277,50 @@ class ItemServiceTest {
                 () -> assertEquals(1L, actualDto.getLastBooking().getId()),
                 () -> assertEquals(2L, actualDto.getNextBooking().getId())
         );
-        verify(itemRepository).findById(1L);
+        verify(itemRepository).findDtoById(1L);
     }
 
     @Test
     void getItem_WhenItemNotFound_ThenThrowsNotFoundException() {
         Long itemId = 1L;
-        Mockito.when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
+        Mockito.when(itemRepository.findDtoById(itemId)).thenReturn(Optional.empty());
 
         assertThrows(
                 NotFoundException.class,
                 () -> itemService.getItem(1L, 1L)
         );
-        verify(itemRepository).findById(1L);
+        verify(itemRepository).findDtoById(1L);
     }
 
     @Test
     void getItemsByOwner_whenNoItems_ThenReturnEmptyList() {
         Long ownerId = 1L;
-        Mockito.when(itemRepository.findAllByOwnerIdIsOrderById(anyLong(), any()))
+        Mockito.when(itemRepository.findAllByOwnerIdIsAndIdGreaterThanOrderById(anyLong(), any(), any()))
                 .thenReturn(List.of());
         Mockito.when(commentRepository.findAllByItemIdIn(anyList())).thenReturn(List.of());
-        Mockito.when(bookingRepository.findAllByItemIdIn(anyList())).thenReturn(List.of());
 
         List<ItemDto> actualDtos = itemService.getItemsByOwner(ownerId, 1L, 1);
 
         assertTrue(actualDtos.isEmpty());
+        verify(bookingRepository, never()).findLastAndNextBookings(anyList(), any());
     }
 
     @Test
     void getItemsByOwner_whenInvoked_ThenReturnListOfItems() {
         Long ownerId = 1L;
-        Mockito.when(itemRepository.findAllByOwnerIdIsOrderById(anyLong(), any()))
-                .thenReturn(List.of(itemToReturn));
+        Mockito.when(itemRepository.findAllByOwnerIdIsAndIdGreaterThanOrderById(anyLong(), any(), any()))
+                .thenReturn(List.of(ItemMapper.toItemDto(itemToReturn)));
         Mockito.when(commentRepository.findAllByItemIdIn(anyList())).thenReturn(List.of());
-        Mockito.when(bookingRepository.findAllByItemIdIn(anyList())).thenReturn(List.of());
+        Mockito.when(bookingRepository.findLastAndNextBookings(anyList(), any()))
+                .thenReturn(List.of(toView(lastBooking, true), toView(nextBooking, false)));
 
         List<ItemDto> actualDtos = itemService.getItemsByOwner(ownerId, 1L, 1);
 
-        assertEquals(1, actualDtos.size());
+        assertAll(
+                () -> assertEquals(1, actualDtos.size()),
+                () -> assertEquals(lastBooking.getId(), actualDtos.get(0).getLastBooking().getId()),
+                () -> assertEquals(nextBooking.getId(), actualDtos.get(0).getNextBooking().getId())
+        );
     }
 
     @Test
@@ -316,13 +332,37 @@ class ItemServiceTest {
 
     @Test
     void search_whenInvoked_thenReturnListOfItems() {
-        Mockito.when(itemRepository.search(any(), any())).thenReturn(List.of(itemToReturn));
+        Mockito.when(itemSearchEngine.search(any(), any(), any())).thenReturn(List.of(ItemMapper.toItemDto(itemToReturn)));
 
         List<ItemDto> actualDtos = itemService.search("name", 1L, 1);
 
         assertEquals(1, actualDtos.size());
     }
 
+    @Test
+    void getItemsByOwnerAfter_whenInvoked_thenSeekAboveCursorId() {
+        Mockito.when(itemRepository.findAllByOwnerIdIsAndIdGreaterThanOrderById(anyLong(), any(), any()))
+                .thenReturn(List.of(ItemMapper.toItemDto(itemToReturn)));
+        Mockito.when(commentRepository.findAllByItemIdIn(anyList())).thenReturn(List.of());
+        Mockito.when(bookingRepository.findLastAndNextBookings(anyList(), any())).thenReturn(List.of());
+
+        List<ItemDto> actualDtos = itemService.getItemsByOwnerAfter(1L, PageCursor.encode(3L), 1);
+
+        assertEquals(1, actualDtos.size());
+        verify(itemRepository).findAllByOwnerIdIsAndIdGreaterThanOrderById(1L, 3L, OffsetPageRequest.of(0L, 1));
+    }
+
+    @Test
+    void searchAfter_whenInvoked_thenSeekAboveCursorId() {
+        Mockito.when(itemSearchEngine.search(any(), any(), any())).thenReturn(List.of(ItemMapper.toItemDto(itemToReturn)));
+
+        List<ItemDto> actualDtos = itemService.searchAfter("name", PageCursor.encode(3L), 1);
+
+        assertEquals(1, actualDtos.size());
+        verify(itemSearchEngine).search("name", 3L, OffsetPageRequest.of(0L, 1));
+        assertTrue(itemService.searchAfter("", PageCursor.encode(3L), 1).isEmpty());
+    }
+
     @Test
     void checkIfUserIsOwner_whenNotOwner_thenThrowsNotFoundException() {
         assertThrows(
@@ -351,39 +391,91 @@ class ItemServiceTest {
         verify(itemRepository).findById(1L);
     }
 
+    @Test
+    void getAvailability_whenInvoked_thenReturnAvailabilityOfItem() {
+        AvailabilityDto availability = new AvailabilityDto(1L, now, now.plusDays(1), List.of(), List.of());
+        Mockito.when(itemRepository.findSnapshotById(1L)).thenReturn(Optional.of(itemSnapshot));
+        Mockito.when(availabilityEngine.bookingsVersion(1L)).thenReturn(3L);
+        Mockito.when(availabilityEngine.getAvailability(1L, now, now.plusDays(1), 3L)).thenReturn(availability);
+
+        assertSame(availability, itemService.getAvailability(1L, 2L, now, now.plusDays(1)));
+        verify(userService).checkIfUserExist(2L);
+    }
+
+    @Test
+    void getAvailability_whenFromIsNotBeforeTo_thenThrowsBadRequestException() {
+        Mockito.when(itemRepository.findSnapshotById(1L)).thenReturn(Optional.of(itemSnapshot));
+
+        assertThrows(
+                BadRequestException.class,
+                () -> itemService.getAvailability(1L, 2L, now, now)
+        );
+        verify(availabilityEngine, never()).getAvailability(anyLong(), any(), any(), anyLong());
+    }
+
+    @Test
+    void getItemSnapshot_whenNotFound_thenThrowsNotFoundException() {
+        Mockito.when(itemRepository.findSnapshotById(anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(
+                NotFoundException.class,
+                () -> itemService.getItemSnapshot(1L)
+        );
+    }
+
     @Test
     void addComment_whenInvoked_thenReturnCommentDto() {
         Long authorId = 2L;
-        Mockito.when(userService.checkIfUserExist(authorId)).thenReturn(otherUser);
-        Mockito.when(itemRepository.findById(1L)).thenReturn(Optional.ofNullable(itemToReturn));
-        Mockito.when(bookingRepository.findAllPastBookings(anyLong(), any())).thenReturn(List.of(lastBooking));
+        Mockito.when(bookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(eq(authorId), eq(1L),
+                any(LocalDateTime.class))).thenReturn(true);
+        Mockito.when(itemRepository.getReferenceById(1L)).thenReturn(itemToReturn);
+        Mockito.when(userService.getUserReference(authorId)).thenReturn(otherUser);
         CommentDto commentToSave = new CommentDto(1L, "text", "author", LocalDateTime.now());
         Mockito.when(commentRepository.saveAndFlush(any(Comment.class))).thenReturn(comment);
 
         CommentDto savedComment = itemService.addComment(1L, 2L, commentToSave);
         assertEquals(1L, savedComment.getId());
+        verify(userService, never()).checkIfUserExist(anyLong());
+        verify(itemRepository, never()).findSnapshotById(anyLong());
     }
 
     @Test
     void addComment_whenNotPastBookingFound_thenThrowsBadRequestException() {
         Long authorId = 2L;
+        Mockito.when(bookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(eq(authorId), eq(1L),
+                any(LocalDateTime.class))).thenReturn(false);
         Mockito.when(userService.checkIfUserExist(authorId)).thenReturn(otherUser);
-        Mockito.when(itemRepository.findById(1L)).thenReturn(Optional.ofNullable(itemToReturn));
-        Mockito.when(bookingRepository.findAllPastBookings(anyLong(), any())).thenReturn(List.of());
+        Mockito.when(itemRepository.findSnapshotById(1L)).thenReturn(Optional.of(itemSnapshot));
         CommentDto commentToSave = new CommentDto(1L, "text", "author", LocalDateTime.now());
 
         assertThrows(
                 BadRequestException.class,
                 () -> itemService.addComment(1L, 2L, commentToSave)
         );
+        verify(commentRepository, never()).saveAndFlush(any(Comment.class));
+    }
+
+    @Test
+    void addComment_whenItemNotFound_thenThrowsNotFoundException() {
+        Long authorId = 2L;
+        Mockito.when(bookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(eq(authorId), eq(1L),
+                any(LocalDateTime.class))).thenReturn(false);
+        Mockito.when(userService.checkIfUserExist(authorId)).thenReturn(otherUser);
+        Mockito.when(itemRepository.findSnapshotById(1L)).thenReturn(Optional.empty());
+        CommentDto commentToSave = new CommentDto(1L, "text", "author", LocalDateTime.now());
+
+        assertThrows(
+                NotFoundException.class,
+                () -> itemService.addComment(1L, 2L, commentToSave)
+        );
     }
 
     @Test
     void getItemsByRequestIdIn_whenInvoked_thenReturnListOfItems() {
         itemToReturn.setRequest(request);
-        Mockito.when(itemRepository.findAllByRequestIdIn(anyList())).thenReturn(List.of(itemToReturn));
+        Mockito.when(itemRepository.findAllByRequestIdIn(anyList())).thenReturn(List.of(ItemMapper.toItemDto(itemToReturn)));
 
-        List<Item> actualItems = itemService.getItemsByRequestIdIn(List.of(1L));
+        List<ItemDto> actualItems = itemService.getItemsByRequestIdIn(List.of(1L));
 
         assertEquals(1, actualItems.size());
     }
@@ -391,12 +483,46 @@ class ItemServiceTest {
     @Test
     void getItemsByRequestId_whenInvoked_thenReturnListOfItems() {
         itemToReturn.setRequest(request);
-        Mockito.when(itemRepository.findAllByRequestId(anyLong())).thenReturn(List.of(itemToReturn));
+        Mockito.when(itemRepository.findAllByRequestId(anyLong())).thenReturn(List.of(ItemMapper.toItemDto(itemToReturn)));
 
-        List<Item> actualItems = itemService.getItemsByRequestId(1L);
+        List<ItemDto> actualItems = itemService.getItemsByRequestId(1L);
 
         assertEquals(1, actualItems.size());
     }
 
 
+
+    private ItemBookingView toView(Booking booking, boolean last) {
+        return new ItemBookingView() {
+            @Override
+            public Long getItemId() {
+                return booking.getItem().getId();
+            }
+
+            @Override
+            public Boolean getLast() {
+                return last;
+            }
+
+            @Override
+            public Long getId() {
+                return booking.getId();
+            }
+
+            @Override
+            public Long getBookerId() {
+                return booking.getBooker().getId();
+            }
+
+            @Override
+            public LocalDateTime getStart() {
+                return booking.getStart();
+            }
+
+            @Override
+            public LocalDateTime getEnd() {
+                return booking.getEnd();
+            }
+        };
+    }
 }
\ No newline at end of file
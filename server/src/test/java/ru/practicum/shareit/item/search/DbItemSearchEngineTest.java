@@ -0,0 +1,43 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DbItemSearchEngineTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @InjectMocks
+    private DbItemSearchEngine searchEngine;
+
+    @Test
+    void search_whenInvoked_thenDelegateToRepository() {
+        ItemDto item = new ItemDto(1L, "name", "description", true, 1L, null);
+        Mockito.when(itemRepository.search("name", 0L, PageRequest.of(0, 10))).thenReturn(List.of(item));
+
+        List<ItemDto> actualItems = searchEngine.search("name", 0L, PageRequest.of(0, 10));
+
+        assertEquals(1, actualItems.size());
+        assertEquals(1L, actualItems.get(0).getId());
+    }
+
+    @Test
+    void index_whenInvoked_thenNothingToDo() {
+        searchEngine.index(new ItemDto());
+        searchEngine.removeOwnerItems(1L);
+
+        verifyNoInteractions(itemRepository);
+    }
+}
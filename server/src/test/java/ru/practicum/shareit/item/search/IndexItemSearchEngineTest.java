@@ -0,0 +1,159 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class IndexItemSearchEngineTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @InjectMocks
+    private IndexItemSearchEngine searchEngine;
+
+    @BeforeEach
+    void setup() {
+        Mockito.when(itemRepository.findIndexedItems(eq(0L), any())).thenReturn(List.of(
+                new IndexedItem(1L, "Drill", "cordless drill", 1L, null),
+                new IndexedItem(2L, "Saw", "hand saw for wood", 1L, 5L),
+                new IndexedItem(3L, "Hammer", "a heavy hammer", 2L, null),
+                new IndexedItem(4L, "Drill bits", "set of bits", 2L, null)));
+        searchEngine.load();
+    }
+
+    @Test
+    void search_whenSubstringOfNameOrDescription_thenReturnMatchingItemsOrderedById() {
+        assertEquals(List.of(1L, 4L), ids(searchEngine.search("rIl", 0L, PageRequest.of(0, 10))));
+        assertEquals(List.of(2L), ids(searchEngine.search("WOOD", 0L, PageRequest.of(0, 10))));
+        assertEquals(5L, searchEngine.search("saw", 0L, PageRequest.of(0, 10)).get(0).getRequestId());
+    }
+
+    @Test
+    void search_whenAllTrigramsPresentButNotSubstring_thenReturnEmptyList() {
+        assertTrue(searchEngine.search("drilbit", 0L, PageRequest.of(0, 10)).isEmpty());
+        assertTrue(searchEngine.search("Drilx", 0L, PageRequest.of(0, 10)).isEmpty());
+        assertTrue(searchEngine.search("ll bits set", 0L, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void search_whenQueryShorterThanTrigram_thenScanIndexedItems() {
+        assertEquals(List.of(1L, 4L), ids(searchEngine.search("ll", 0L, PageRequest.of(0, 10))));
+        assertEquals(List.of(4L), ids(searchEngine.search("ll", 1L, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void search_whenPaged_thenApplyAfterIdOffsetAndLimit() {
+        assertEquals(List.of(4L), ids(searchEngine.search("drill", 1L, PageRequest.of(0, 10))));
+        assertEquals(List.of(4L), ids(searchEngine.search("drill", 0L, OffsetPageRequest.of(1L, 10))));
+        assertEquals(List.of(1L), ids(searchEngine.search("drill", 0L, OffsetPageRequest.of(0L, 1))));
+    }
+
+    @Test
+    void index_whenItemBecomesUnavailable_thenRemoveItFromIndex() {
+        searchEngine.index(new ItemDto(1L, "Drill", "cordless drill", false, 1L, null, null, null, null));
+
+        assertEquals(List.of(4L), ids(searchEngine.search("drill", 0L, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void index_whenItemRenamed_thenOldTextNoLongerMatches() {
+        searchEngine.index(new ItemDto(3L, "Mallet", "rubber mallet", true, 2L, null, null, null, null));
+        searchEngine.index(new ItemDto(5L, "Axe", "small axe", true, 2L, null, null, null, null));
+
+        assertTrue(searchEngine.search("hammer", 0L, PageRequest.of(0, 10)).isEmpty());
+        assertEquals(List.of(3L), ids(searchEngine.search("mallet", 0L, PageRequest.of(0, 10))));
+        assertEquals(List.of(5L), ids(searchEngine.search("axe", 0L, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void index_whenTransactionActive_thenApplyOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            searchEngine.index(new ItemDto(5L, "Axe", "small axe", true, 2L, null, null, null, null));
+            assertTrue(searchEngine.search("axe", 0L, PageRequest.of(0, 10)).isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(List.of(5L), ids(searchEngine.search("axe", 0L, PageRequest.of(0, 10))));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void removeOwnerItems_whenInvoked_thenRemoveAllItemsOfOwner() {
+        searchEngine.removeOwnerItems(2L);
+
+        assertEquals(List.of(1L), ids(searchEngine.search("drill", 0L, PageRequest.of(0, 10))));
+        assertTrue(searchEngine.search("hammer", 0L, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void load_whenMoreItemsThanChunk_thenLoadAllChunks() {
+        List<IndexedItem> firstChunk = LongStream.rangeClosed(11, 10 + IndexItemSearchEngine.LOAD_CHUNK)
+                .mapToObj(id -> new IndexedItem(id, "tent " + id, "tent", 3L, null))
+                .collect(Collectors.toCollection(ArrayList::new));
+        long lastId = 10 + IndexItemSearchEngine.LOAD_CHUNK;
+        Mockito.when(itemRepository.findIndexedItems(eq(0L), any())).thenReturn(firstChunk);
+        Mockito.when(itemRepository.findIndexedItems(eq(lastId), any()))
+                .thenReturn(List.of(new IndexedItem(lastId + 1, "tent", "last tent", 3L, null)));
+
+        searchEngine.load();
+
+        assertEquals(List.of(lastId, lastId + 1), ids(searchEngine.search("tent", lastId - 1, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void load_whenItemChangedWhileChunkWasRead_thenKeepNewerChange() {
+        Mockito.when(itemRepository.findIndexedItems(eq(0L), any())).thenAnswer(invocation -> {
+            searchEngine.index(new ItemDto(1L, "Auger", "hand auger", true, 1L, null, null, null, null));
+            searchEngine.index(new ItemDto(2L, "Saw", "hand saw for wood", false, 1L, 5L, null, null, null));
+            return List.of(new IndexedItem(1L, "Drill", "cordless drill", 1L, null),
+                    new IndexedItem(2L, "Saw", "hand saw for wood", 1L, 5L),
+                    new IndexedItem(3L, "Hammer", "a heavy hammer", 2L, null));
+        });
+
+        searchEngine.load();
+
+        assertEquals(List.of(1L), ids(searchEngine.search("auger", 0L, PageRequest.of(0, 10))));
+        assertTrue(searchEngine.search("drill", 0L, PageRequest.of(0, 10)).stream().noneMatch(i -> i.getId() == 1L));
+        assertTrue(searchEngine.search("saw", 0L, PageRequest.of(0, 10)).isEmpty());
+        assertEquals(List.of(3L), ids(searchEngine.search("hammer", 0L, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void load_whenOwnerItemsRemovedWhileChunkWasRead_thenSkipThem() {
+        Mockito.when(itemRepository.findIndexedItems(eq(0L), any())).thenAnswer(invocation -> {
+            searchEngine.removeOwnerItems(2L);
+            return List.of(new IndexedItem(1L, "Drill", "cordless drill", 1L, null),
+                    new IndexedItem(3L, "Hammer", "a heavy hammer", 2L, null));
+        });
+
+        searchEngine.load();
+
+        assertTrue(searchEngine.search("hammer", 0L, PageRequest.of(0, 10)).isEmpty());
+        assertEquals(List.of(1L), ids(searchEngine.search("drill", 0L, PageRequest.of(0, 10))));
+    }
+
+    private List<Long> ids(List<ItemDto> items) {
+        return items.stream().map(ItemDto::getId).collect(Collectors.toList());
+    }
+}
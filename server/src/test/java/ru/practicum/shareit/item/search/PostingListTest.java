@@ -0,0 +1,56 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostingListTest {
+
+    @Test
+    void add_whenOutOfOrder_thenKeepIdsSortedAndUnique() {
+        PostingList list = new PostingList();
+        list.add(5L);
+        list.add(1L);
+        list.add(3L);
+        list.add(3L);
+        list.add(7L);
+
+        assertEquals(4, list.size());
+        assertEquals(1L, list.get(0));
+        assertEquals(3L, list.get(1));
+        assertEquals(5L, list.get(2));
+        assertEquals(7L, list.get(3));
+    }
+
+    @Test
+    void remove_whenPresent_thenShiftRemainingIds() {
+        PostingList list = new PostingList();
+        list.add(1L);
+        list.add(2L);
+        list.add(3L);
+
+        list.remove(2L);
+        list.remove(9L);
+
+        assertEquals(2, list.size());
+        assertFalse(list.contains(2L));
+        assertTrue(list.contains(3L));
+        list.remove(1L);
+        list.remove(3L);
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    void positionAfter_whenInvoked_thenReturnFirstGreaterPosition() {
+        PostingList list = new PostingList();
+        list.add(2L);
+        list.add(4L);
+        list.add(6L);
+        list.trim();
+
+        assertEquals(0, list.positionAfter(0L));
+        assertEquals(1, list.positionAfter(2L));
+        assertEquals(2, list.positionAfter(5L));
+        assertEquals(3, list.positionAfter(6L));
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffsetPageRequestTest {
+
+    @Test
+    void of_whenFromIsNotPageAligned_thenKeepExactOffset() {
+        OffsetPageRequest pageRequest = OffsetPageRequest.of(5L, 10);
+
+        assertEquals(5L, pageRequest.getOffset());
+        assertEquals(10, pageRequest.getPageSize());
+        assertEquals(0, pageRequest.getPageNumber());
+        assertTrue(pageRequest.hasPrevious());
+    }
+
+    @Test
+    void next_whenInvoked_thenShiftOffsetBySize() {
+        Pageable next = OffsetPageRequest.of(5L, 10).next();
+
+        assertEquals(15L, next.getOffset());
+        assertEquals(5L, next.previousOrFirst().getOffset());
+        assertEquals(0L, OffsetPageRequest.of(3L, 10).previousOrFirst().getOffset());
+        assertEquals(0L, next.first().getOffset());
+        assertEquals(20L, next.withPage(2).getOffset());
+    }
+
+    @Test
+    void of_whenNotValid_thenThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> OffsetPageRequest.of(-1L, 10));
+        assertThrows(IllegalArgumentException.class, () -> OffsetPageRequest.of(0L, 0));
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exeption.BadRequestException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void decode_whenIdCursor_thenReturnIdWithoutCreated() {
+        PageCursor cursor = PageCursor.decode(PageCursor.encode(42L));
+
+        assertEquals(42L, cursor.getId());
+        assertNull(cursor.getCreated());
+        assertThrows(BadRequestException.class, cursor::getRequiredCreated);
+    }
+
+    @Test
+    void decode_whenCreatedCursor_thenReturnCreatedAndId() {
+        LocalDateTime created = LocalDateTime.of(2023, 1, 2, 3, 4, 5);
+
+        PageCursor cursor = PageCursor.decode(PageCursor.encode(created, 7L));
+
+        assertEquals(7L, cursor.getId());
+        assertEquals(created, cursor.getRequiredCreated());
+    }
+
+    @Test
+    void decode_whenTokenIsBroken_thenThrowsBadRequestException() {
+        assertThrows(BadRequestException.class, () -> PageCursor.decode("%%%"));
+        assertThrows(BadRequestException.class, () -> PageCursor.decode(PageCursor.encode(null, 1L)));
+    }
+
+    @Test
+    void toResponse_whenPageIsFull_thenSetNextCursorHeader() {
+        ResponseEntity<List<Long>> response = PageCursor.toResponse(List.of(1L, 2L), 2, PageCursor::encode);
+
+        assertEquals(PageCursor.encode(2L), response.getHeaders().getFirst(PageCursor.NEXT_CURSOR_HEADER));
+        assertEquals(List.of(1L, 2L), response.getBody());
+    }
+
+    @Test
+    void toResponse_whenPageIsLast_thenNoNextCursorHeader() {
+        ResponseEntity<List<Long>> response = PageCursor.toResponse(List.of(1L), 2, PageCursor::encode);
+
+        assertFalse(response.getHeaders().containsKey(PageCursor.NEXT_CURSOR_HEADER));
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import ru.practicum.shareit.QueryBudgetTest;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+class ItemRequestQueryBudgetTest extends QueryBudgetTest {
+    private static final int CREATE_REQUEST = 2;
+    private static final int GET_USERS_REQUESTS = 3;
+    private static final int GET_ALL_REQUESTS = 3;
+    private static final int GET_REQUEST = 4;
+    private static final int REQUESTS = 3;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRequestService itemRequestService;
+
+    UserDto requestor;
+    UserDto owner;
+    List<ItemRequestDto> requests = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        requestor = userService.addNewUser(new UserDto(null, "requestor", unique("requestor@email")));
+        owner = userService.addNewUser(new UserDto(null, "owner", unique("owner@email")));
+        for (int i = 0; i < REQUESTS; i++) {
+            ItemRequestDto request = itemRequestService.createNewRequest(
+                    new ItemRequestDto(null, "need a drill", null, null, null), requestor.getId());
+            requests.add(request);
+            itemService.addNewItem(new ItemDto(null, "drill", "drill", true, owner.getId(),
+                    request.getId(), null, null, null));
+        }
+    }
+
+    @Test
+    void createNewRequest() throws Exception {
+        assertWithinBudget(CREATE_REQUEST, post("/requests")
+                .header(USER_HEADER, requestor.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new ItemRequestDto(null, "need a saw", null, null, null))));
+    }
+
+    @Test
+    void getUsersRequests() throws Exception {
+        assertWithinBudget(GET_USERS_REQUESTS, get("/requests")
+                .header(USER_HEADER, requestor.getId()));
+    }
+
+    @Test
+    void getAllRequestsPageable() throws Exception {
+        assertWithinBudget(GET_ALL_REQUESTS, get("/requests/all")
+                .header(USER_HEADER, owner.getId())
+                .param("from", "0")
+                .param("size", "10"));
+    }
+
+    @Test
+    void getRequestById() throws Exception {
+        assertWithinBudget(GET_REQUEST, get("/requests/{id}", requests.get(0).getId())
+                .header(USER_HEADER, owner.getId()));
+    }
+}
@@ -6,11 +6,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,13 +39,13 @@ class ItemRequestRepositoryTest {
         requestToSave = new ItemRequest();
         requestToSave.setRequestor(requestor1);
         requestToSave.setDescription("desc");
-        requestToSave.setCreated(LocalDateTime.now().minusDays(2));
+        requestToSave.setCreated(LocalDateTime.now().minusDays(2).truncatedTo(ChronoUnit.SECONDS));
         request1 = itemRequestRepository.save(requestToSave);
 
         requestToSave = new ItemRequest();
         requestToSave.setRequestor(requestor1);
         requestToSave.setDescription("desc1");
-        requestToSave.setCreated(LocalDateTime.now().minusDays(1));
+        requestToSave.setCreated(LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS));
         request2 = itemRequestRepository.save(requestToSave);
     }
 
@@ -54,7 +57,7 @@ class ItemRequestRepositoryTest {
 
     @Test
     void findAllByRequestorIdOrderByCreatedDesc_whenFound_thenReturnListOfRequests() {
-        List<ItemRequest> requests = itemRequestRepository
+        List<ItemRequestDto> requests = itemRequestRepository
                 .findAllByRequestorIdOrderByCreatedDesc(requestor1.getId());
         assertAll(
                 () -> assertEquals(2, requests.size()),
@@ -65,22 +68,49 @@ class ItemRequestRepositoryTest {
 
     @Test
     void findAllByRequestorIdOrderByCreatedDesc_whenNotFound_thenReturnEmptyList() {
-        List<ItemRequest> requests = itemRequestRepository
+        List<ItemRequestDto> requests = itemRequestRepository
                 .findAllByRequestorIdOrderByCreatedDesc(requestor2.getId());
         assertTrue(requests.isEmpty());
     }
 
     @Test
     void findAllByRequestorIdIsNot_whenNotFound_thenReturnEmptyList() {
-        List<ItemRequest> requests = itemRequestRepository
+        List<ItemRequestDto> requests = itemRequestRepository
                 .findAllByRequestorIdIsNot(requestor1.getId(), PageRequest.of(0, 10));
         assertTrue(requests.isEmpty());
     }
 
     @Test
     void findAllByRequestorIdIsNot_whenFound_thenReturnListOfRequests() {
-        List<ItemRequest> requests = itemRequestRepository
+        List<ItemRequestDto> requests = itemRequestRepository
                 .findAllByRequestorIdIsNot(requestor2.getId(), PageRequest.of(0, 10));
         assertEquals(2, requests.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllByRequestorIdIsNot_whenSortGiven_thenReturnSortedRequests() {
+        List<ItemRequestDto> requests = itemRequestRepository.findAllByRequestorIdIsNot(requestor2.getId(),
+                PageRequest.of(0, 10, Sort.by("created").descending().and(Sort.by("id").descending())));
+        assertAll(
+                () -> assertEquals(request2.getId(), requests.get(0).getId()),
+                () -> assertEquals(requestor1.getId(), requests.get(0).getRequestorId()),
+                () -> assertEquals(request2.getCreated(), requests.get(0).getCreated())
+        );
+    }
+
+    @Test
+    void findDtoById_whenFound_thenReturnRequestDto() {
+        assertEquals("desc", itemRequestRepository.findDtoById(request1.getId()).orElseThrow().getDescription());
+        assertTrue(itemRequestRepository.findDtoById(999L).isEmpty());
+    }
+
+    @Test
+    void findAllByRequestorIdIsNotAfter_whenCursorGiven_thenReturnOnlyOlderRequests() {
+        List<ItemRequestDto> requests = itemRequestRepository.findAllByRequestorIdIsNotAfter(
+                requestor2.getId(), request2.getCreated(), request2.getId(), PageRequest.of(0, 10));
+        assertAll(
+                () -> assertEquals(1, requests.size()),
+                () -> assertEquals(request1.getId(), requests.get(0).getId())
+        );
+    }
+}
@@ -7,9 +7,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.exeption.BadRequestException;
 import ru.practicum.shareit.exeption.NotFoundException;
+import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.impl.ItemRequestServiceImpl;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -37,9 +41,11 @@ class ItemRequestServiceTest {
     ItemRequestDto requestDtoToSave;
     ItemRequest requestToSave;
     ItemRequest requestToReturn;
+    ItemRequestDto requestDtoToReturn;
     User requestor;
     User owner;
     Item item;
+    ItemDto itemDto;
 
     @BeforeEach
     void setup() {
@@ -61,6 +67,9 @@ class ItemRequestServiceTest {
         item.setId(1L);
         item.setOwner(owner);
         item.setRequest(requestToReturn);
+
+        requestDtoToReturn = ItemRequestMapper.toItemRequestDto(requestToReturn);
+        itemDto = ItemMapper.toItemDto(item);
     }
 
     @Test
@@ -94,9 +103,9 @@ class ItemRequestServiceTest {
         Long userId = 1L;
         Mockito.when(userService.checkIfUserExist(userId)).thenReturn(requestor);
         Mockito.when(itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(userId))
-                .thenReturn(List.of(requestToReturn));
+                .thenReturn(List.of(requestDtoToReturn));
         Mockito.when(itemService.getItemsByRequestIdIn(List.of(1L)))
-                .thenReturn(List.of(item));
+                .thenReturn(List.of(itemDto));
 
         List<ItemRequestDto> actual = itemRequestService.getUsersRequests(userId);
 
@@ -112,9 +121,9 @@ class ItemRequestServiceTest {
         Mockito.when(userService.checkIfUserExist(userId)).thenReturn(owner);
         Mockito.when(itemRequestRepository
                         .findAllByRequestorIdIsNot(eq(userId), any()))
-                .thenReturn(List.of(requestToReturn));
+                .thenReturn(List.of(requestDtoToReturn));
         Mockito.when(itemService.getItemsByRequestIdIn(List.of(1L)))
-                .thenReturn(List.of(item));
+                .thenReturn(List.of(itemDto));
 
         List<ItemRequestDto> actual = itemRequestService.getAllRequestsPageable(userId, 1L, 1);
 
@@ -124,12 +133,39 @@ class ItemRequestServiceTest {
         );
     }
 
+    @Test
+    void getAllRequestsAfter_whenInvoked_thenSeekByCreatedAndId() {
+        Long userId = 2L;
+        LocalDateTime created = LocalDateTime.now();
+        Mockito.when(userService.checkIfUserExist(userId)).thenReturn(owner);
+        Mockito.when(itemRequestRepository
+                        .findAllByRequestorIdIsNotAfter(eq(userId), eq(created), eq(5L), any()))
+                .thenReturn(List.of(requestDtoToReturn));
+        Mockito.when(itemService.getItemsByRequestIdIn(List.of(1L)))
+                .thenReturn(List.of(itemDto));
+
+        List<ItemRequestDto> actual = itemRequestService
+                .getAllRequestsAfter(userId, PageCursor.encode(created, 5L), 1);
+
+        assertEquals(1, actual.size());
+    }
+
+    @Test
+    void getAllRequestsAfter_whenCursorHasNoCreated_thenThrowsBadRequestException() {
+        Mockito.when(userService.checkIfUserExist(2L)).thenReturn(owner);
+
+        assertThrows(
+                BadRequestException.class,
+                () -> itemRequestService.getAllRequestsAfter(2L, PageCursor.encode(5L), 1)
+        );
+    }
+
     @Test
     void getRequestById_whenFound_thenReturnRequest() {
         Long userId = 2L;
         Long requestId = 1L;
         Mockito.when(userService.checkIfUserExist(userId)).thenReturn(owner);
-        Mockito.when(itemRequestRepository.findById(requestId)).thenReturn(Optional.of(requestToReturn));
+        Mockito.when(itemRequestRepository.findDtoById(requestId)).thenReturn(Optional.of(requestDtoToReturn));
 
         ItemRequestDto actualDto = itemRequestService.getRequestById(requestId, userId);
 
@@ -141,7 +177,7 @@ class ItemRequestServiceTest {
         Long userId = 2L;
         Long requestId = 1L;
         Mockito.when(userService.checkIfUserExist(userId)).thenReturn(owner);
-        Mockito.when(itemRequestRepository.findById(requestId)).thenReturn(Optional.empty());
+        Mockito.when(itemRequestRepository.findDtoById(requestId)).thenReturn(Optional.empty());
 
         assertThrows(
                 NotFoundException.class,
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.retry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"shareit.retry.max-attempts=3", "shareit.retry.delay=1ms",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true"})
+class RetryConfigTest {
+    @Autowired
+    private Writer writer;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setup() {
+        writer.reset();
+    }
+
+    @Test
+    void write_whenConflictResolvedBeforeLastAttempt_thenRetryInNewTransaction() {
+        assertEquals(3, writer.write(2));
+        assertEquals(3, writer.completedTransactions());
+    }
+
+    @Test
+    void write_whenConflictOnEveryAttempt_thenThrowsAfterMaxAttempts() {
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> writer.write(5));
+        assertEquals(3, writer.attempts());
+    }
+
+    @Test
+    void write_whenConflictOnCachedEntity_thenEvictItBeforeNextAttempt() {
+        UserDto owner = userService.addNewUser(new UserDto(null, "owner", "evict-owner@email"));
+        ItemDto item = itemService.addNewItem(new ItemDto(null, "drill", "drill", true, owner.getId(),
+                null, null, null, null));
+        itemRepository.findById(item.getId());
+        assertTrue(entityManagerFactory.getCache().contains(Item.class, item.getId()));
+
+        writer.conflictOn(item.getId());
+        writer.write(1);
+
+        assertFalse(entityManagerFactory.getCache().contains(Item.class, item.getId()));
+        userService.deleteUser(owner.getId());
+    }
+
+    @Test
+    void updateItem_whenCachedVersionIsStale_thenRetryReadsCurrentVersion() {
+        UserDto owner = userService.addNewUser(new UserDto(null, "owner", "retry-owner@email"));
+        ItemDto item = itemService.addNewItem(new ItemDto(null, "drill", "drill", true, owner.getId(),
+                null, null, null, null));
+        itemRepository.findById(item.getId());
+        jdbcTemplate.update("update items set name = 'saw', version = version + 1 where id = ?", item.getId());
+
+        ItemDto updated = itemService.updateItem(new ItemDto(item.getId(), null, "new description", null,
+                owner.getId(), null, null, null, null));
+
+        assertEquals("saw", updated.getName());
+        assertEquals("new description", updated.getDescription());
+        userService.deleteUser(owner.getId());
+    }
+
+    @TestConfiguration
+    static class WriterConfig {
+        @Bean
+        Writer writer() {
+            return new Writer();
+        }
+    }
+
+    static class Writer {
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final AtomicInteger completedTransactions = new AtomicInteger();
+        private volatile long conflictingItemId = 1L;
+
+        @RetryOnConflict
+        @Transactional
+        public int write(int conflicts) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    completedTransactions.incrementAndGet();
+                }
+            });
+            int attempt = attempts.incrementAndGet();
+            if (attempt <= conflicts) {
+                throw new ObjectOptimisticLockingFailureException(Item.class, conflictingItemId);
+            }
+            return attempt;
+        }
+
+        public void conflictOn(long itemId) {
+            conflictingItemId = itemId;
+        }
+
+        public int attempts() {
+            return attempts.get();
+        }
+
+        public int completedTransactions() {
+            return completedTransactions.get();
+        }
+
+        public void reset() {
+            attempts.set(0);
+            completedTransactions.set(0);
+            conflictingItemId = 1L;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import ru.practicum.shareit.QueryBudgetTest;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+class UserQueryBudgetTest extends QueryBudgetTest {
+    private static final int GET_USERS = 1;
+    private static final int FIND_USER = 2;
+    private static final int ADD_USER = 1;
+    private static final int UPDATE_USER = 2;
+    private static final int DELETE_USER = 4;
+
+    @Autowired
+    private UserService userService;
+
+    UserDto user;
+
+    @BeforeEach
+    void setup() {
+        user = userService.addNewUser(new UserDto(null, "user", unique("user@email")));
+        userService.addNewUser(new UserDto(null, "other", unique("other@email")));
+    }
+
+    @Test
+    void getUsers() throws Exception {
+        assertWithinBudget(GET_USERS, get("/users"));
+    }
+
+    @Test
+    void findUser() throws Exception {
+        assertWithinBudget(FIND_USER, get("/users/{id}", user.getId()));
+    }
+
+    @Test
+    void addNewUser() throws Exception {
+        assertWithinBudget(ADD_USER, post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new UserDto(null, "new", unique("new@email")))));
+    }
+
+    @Test
+    void updateUser() throws Exception {
+        assertWithinBudget(UPDATE_USER, patch("/users/{id}", user.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new UserDto(null, "new name", null))));
+    }
+
+    @Test
+    void deleteUser() throws Exception {
+        assertWithinBudget(DELETE_USER, delete("/users/{id}", user.getId()));
+    }
+}
@@ -3,14 +3,22 @@ package ru.practicum.shareit.user;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.availability.AvailabilityEngine;
 import ru.practicum.shareit.exeption.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserSnapshot;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,10 +32,19 @@ class UserServiceTest {
 
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+    @Mock
+    private AvailabilityEngine availabilityEngine;
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EntityManagerFactory entityManagerFactory;
     @InjectMocks
     private UserServiceImpl userService;
     User user1;
     User user2;
+    UserSnapshot snapshot;
 
     @BeforeEach
     void setup() {
@@ -41,6 +58,7 @@ class UserServiceTest {
                 "name2",
                 "email2@yandex.ru"
         );
+        snapshot = new UserSnapshot(user1.getId(), user1.getName(), user1.getEmail());
     }
 
     @Test
@@ -70,24 +88,24 @@ class UserServiceTest {
     @Test
     void findUser_whenUserFound_thenReturnUserDto() {
         Long userId = 1L;
-        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user1));
+        Mockito.when(userRepository.findSnapshotById(userId)).thenReturn(Optional.of(snapshot));
 
         UserDto actualUser = userService.findUser(userId);
 
         assertEquals(user1.getId(), actualUser.getId());
-        verify(userRepository).findById(userId);
+        verify(userRepository).findSnapshotById(userId);
     }
 
     @Test
     void findUser_whenUserNotFound_thenThrowsNotFoundException() {
         Long userId = 1L;
-        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        Mockito.when(userRepository.findSnapshotById(userId)).thenReturn(Optional.empty());
 
         assertThrows(
                 NotFoundException.class,
                 () -> userService.findUser(userId)
         );
-        verify(userRepository).findById(userId);
+        verify(userRepository).findSnapshotById(userId);
     }
 
     @Test
@@ -167,16 +185,21 @@ class UserServiceTest {
     @Test
     void deleteUser_whenInvoked_thenInvokeUserRepositoryDeleteById() {
         Long userId = 1L;
-        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user1));
+        Mockito.when(userRepository.findSnapshotById(userId)).thenReturn(Optional.of(snapshot));
 
         userService.deleteUser(userId);
+        verify(bookingRepository).raiseBookingsVersionsOfBooker(userId);
         verify(userRepository).deleteById(userId);
+        verify(itemSearchEngine).removeOwnerItems(userId);
+        verify(availabilityEngine).evictAll();
+        verify(entityManagerFactory.getCache()).evict(Item.class);
+        verify(entityManagerFactory.getCache()).evict(ItemRequest.class);
     }
 
     @Test
     void deleteUser_whenUserNotFound_thenThrowsNotFoundException() {
         Long userId = 1L;
-        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        Mockito.when(userRepository.findSnapshotById(userId)).thenReturn(Optional.empty());
 
         assertThrows(
                 NotFoundException.class,
@@ -185,27 +208,36 @@ class UserServiceTest {
         verify(userRepository, never()).deleteById(anyLong());
     }
 
+    @Test
+    void getUserReference_whenInvoked_thenReturnReferenceWithoutSnapshotCheck() {
+        Mockito.when(userRepository.getReferenceById(1L)).thenReturn(user1);
+
+        assertSame(user1, userService.getUserReference(1L));
+        verify(userRepository, never()).findSnapshotById(anyLong());
+    }
+
     @Test
     void checkIfUserExist_whenUserFound_thenReturnUser() {
         Long userId = 1L;
-        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(user1));
+        Mockito.when(userRepository.findSnapshotById(userId)).thenReturn(Optional.of(snapshot));
+        Mockito.when(userRepository.getReferenceById(userId)).thenReturn(user1);
 
         User actualUser = userService.checkIfUserExist(userId);
 
         assertEquals(user1, actualUser);
-        verify(userRepository).findById(userId);
+        verify(userRepository, never()).findById(userId);
     }
 
     @Test
     void checkIfUserExist_whenUserNotFound_thenThrowsNotFoundException() {
         Long userId = 1L;
-        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        Mockito.when(userRepository.findSnapshotById(userId)).thenReturn(Optional.empty());
 
         assertThrows(
                 NotFoundException.class,
                 () -> userService.checkIfUserExist(userId)
         );
-        verify(userRepository).findById(userId);
+        verify(userRepository, never()).getReferenceById(userId);
     }
 
 }
\ No newline at end of file